@@ -8,7 +8,6 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Cloudlet;
-import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 import org.cloudbus.cloudsim.HarddriveStorage;
 import org.cloudbus.cloudsim.Host;
@@ -21,6 +20,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.workflowsim.AnalyticCloudletScheduler;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
@@ -52,16 +52,16 @@ public class IWDAlgorithmExample1 {
 		double costPerStorage = 0; // the cost of using storage in this resource
 		double costPerBw = 0; // the cost of using bw in this resource
 		vm[0] = new CondorVM(0, userId, mips, 1, 1700, bw, 160000, vmm, 0.044, costPerMem, costPerStorage, costPerBw,
-				new CloudletSchedulerSpaceShared());
+				new AnalyticCloudletScheduler());
 		list.add(vm[0]);
 		vm[1] = new CondorVM(1, userId, mips * 2, 1, 3750, bw, 410000, vmm, 0.087, costPerMem, costPerStorage,
-				costPerBw, new CloudletSchedulerSpaceShared());
+				costPerBw, new AnalyticCloudletScheduler());
 		list.add(vm[1]);
 		vm[2] = new CondorVM(2, userId, mips * 8, 1, 7500, bw, 840000, vmm, 0.175, costPerMem, costPerStorage,
-				costPerBw, new CloudletSchedulerSpaceShared());
+				costPerBw, new AnalyticCloudletScheduler());
 		list.add(vm[2]);
 		vm[3] = new CondorVM(3, userId, mips * 32, 1, 15000, bw, 840000 * 2, vmm, 0.35, costPerMem, costPerStorage,
-				costPerBw, new CloudletSchedulerSpaceShared());
+				costPerBw, new AnalyticCloudletScheduler());
 		list.add(vm[3]);
 
 		System.out.println(list.get(1));
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This TaskMemoryExample1 measures the heap retained by the tasks of a parsed
+ * workflow. It parses Montage_1000 several times, each time in its own
+ * simulation context, keeps all the task lists and reports the growth of the
+ * used heap after garbage collection, divided by the number of tasks. The
+ * files of the tasks and the replica catalog are retained too, so the result
+ * is the cost of a task in a parsed workflow rather than of the Task object
+ * alone. The dax path and the number of copies can be given as arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class TaskMemoryExample1 {
+
+    /**
+     * Gets the used heap after running the garbage collector until it no
+     * longer shrinks
+     *
+     * @return the used heap in bytes
+     */
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    /**
+     * Parses a workflow in the current simulation context
+     *
+     * @param daxPath the dax path
+     * @return the tasks of the workflow
+     */
+    private static List<Task> parse(String daxPath) {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0, ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(20, daxPath, null, null, op, cp,
+                Parameters.SchedulingAlgorithm.MINMIN, Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        WorkflowParser parser = new WorkflowParser(0);
+        parser.parse();
+        return parser.getTaskList();
+    }
+
+    public static void main(String[] args) {
+        /**
+         * Should change this based on real physical path
+         */
+        String daxPath = "/Users/weiweich/NetBeansProjects/WorkflowSim-1.0/config/dax/Montage_1000.xml";
+        if (args.length > 0) {
+            daxPath = args[0];
+        }
+        if (!new File(daxPath).exists()) {
+            Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+            return;
+        }
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        /**
+         * Warm up, so that the classes and the static state are not counted
+         */
+        SimulationContext previous = SimulationContext.setCurrent(new SimulationContext());
+        try {
+            parse(daxPath);
+        } finally {
+            SimulationContext.setCurrent(previous);
+        }
+
+        long before = getUsedHeap();
+        List<SimulationContext> contexts = new ArrayList<>();
+        List<List<Task>> workflows = new ArrayList<>();
+        int taskNum = 0;
+        for (int i = 0; i < copies; i++) {
+            SimulationContext context = new SimulationContext();
+            previous = SimulationContext.setCurrent(context);
+            try {
+                List<Task> taskList = parse(daxPath);
+                taskNum += taskList.size();
+                workflows.add(taskList);
+                contexts.add(context);
+            } finally {
+                SimulationContext.setCurrent(previous);
+            }
+        }
+        long after = getUsedHeap();
+
+        Log.printLine("Parsed " + copies + " copies of " + new File(daxPath).getName()
+                + ", " + taskNum + " tasks");
+        Log.printLine("Retained heap: " + (after - before) + " bytes, "
+                + (after - before) / Math.max(taskNum, 1) + " bytes per task");
+        // Keeps the workflows reachable until the heap is measured
+        if (workflows.size() != contexts.size()) {
+            Log.printLine("Error: a workflow was lost");
+        }
+    }
+}
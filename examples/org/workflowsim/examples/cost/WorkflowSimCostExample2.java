@@ -19,9 +19,9 @@ import java.io.File;
 import java.util.Calendar;
 import java.util.LinkedList;
 import java.util.List;
-import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.AnalyticCloudletScheduler;
 import org.workflowsim.CondorVM;
 import org.workflowsim.WorkflowDatacenter;
 import org.workflowsim.Job;
@@ -164,7 +164,7 @@ public class WorkflowSimCostExample2 extends WorkflowSimCostExample1 {
         for (int i = 0; i < vms; i++) {
             double ratio = 1.0;
             vm[i] = new CondorVM(i, userId, mips * ratio, pesNumber, ram, bw, size, vmm,
-                    cost, costPerMem, costPerStorage, costPerBw, new CloudletSchedulerSpaceShared());
+                    cost, costPerMem, costPerStorage, costPerBw, new AnalyticCloudletScheduler());
             list.add(vm[i]);
         }
         return list;
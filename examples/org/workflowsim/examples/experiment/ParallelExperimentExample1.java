@@ -0,0 +1,63 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.experiment;
+
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.experiment.ExperimentRunner;
+import org.workflowsim.experiment.ResultSink;
+import org.workflowsim.experiment.Scenario;
+import org.workflowsim.experiment.ScenarioGrid;
+import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
+
+/**
+ * This ParallelExperimentExample1 compares the static schedulers on Montage
+ * with 10, 20 and 40 vms. The scenarios run concurrently and their results are
+ * printed as comma-separated values as soon as they complete.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ParallelExperimentExample1 {
+
+    public static void main(String[] args) {
+        /**
+         * Should change this based on real physical path
+         */
+        String daxPath = "/Users/weiweich/NetBeansProjects/WorkflowSim-1.0/config/dax/Montage_100.xml";
+        if (!new File(daxPath).exists()) {
+            Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+            return;
+        }
+        List<Scenario> scenarios = new ScenarioGrid()
+                .daxPaths(daxPath)
+                .schedulingAlgorithms(SchedulingAlgorithm.MINMIN, SchedulingAlgorithm.MAXMIN,
+                        SchedulingAlgorithm.FCFS, SchedulingAlgorithm.MCT,
+                        SchedulingAlgorithm.ROUNDROBIN)
+                .vmNums(10, 20, 40)
+                .getScenarios();
+
+        ExperimentRunner runner = new ExperimentRunner();
+        try {
+            runner.run(scenarios, new ResultSink.Csv(new OutputStreamWriter(System.out)));
+        } catch (Exception e) {
+            Log.printLine("The experiment has been terminated due to an unexpected error");
+        } finally {
+            runner.shutdown();
+        }
+    }
+}
@@ -21,9 +21,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
-import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.AnalyticCloudletScheduler;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Job;
 import org.workflowsim.WorkflowDatacenter;
@@ -66,7 +66,7 @@ public class HEFTPlanningAlgorithmExample1 extends WorkflowSimBasicExample1 {
 		for (int i = 0; i < vms; i++) {
 			double ratio = bwRandom.nextDouble();
 			vm[i] = new CondorVM(i, userId, mips * ratio, pesNumber, ram, (long) (bw * ratio), size, vmm,
-					new CloudletSchedulerSpaceShared());
+					new AnalyticCloudletScheduler());
 			list.add(vm[i]);
 		}
 		return list;
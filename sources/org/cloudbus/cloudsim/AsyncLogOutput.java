@@ -0,0 +1,259 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * AsyncLogOutput is an output for {@link Log} that hands the messages to a background thread,
+ * which writes them to another stream through a buffer. The messages wait in a ring buffer of a
+ * bounded number of slots; a simulation that logs faster than the stream is written blocks until
+ * a slot is free, so no message is lost.
+ * <p>
+ * {@link #flush()} waits until every message has been written. What is still pending when the
+ * virtual machine exits is written by a shutdown hook, and {@link #close()} writes it and stops
+ * the thread.
+ *
+ * @since CloudSim Toolkit 3.0
+ */
+public class AsyncLogOutput extends OutputStream {
+
+	/** The default number of slots of the ring buffer. */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/** The size of the buffer of the stream written. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The stream written. */
+	private final OutputStream output;
+
+	/** The messages waiting, from head to head + size - 1 modulo the capacity. */
+	private final byte[][] ring;
+
+	/** The slot of the oldest message. */
+	private int head;
+
+	/** The number of messages waiting. */
+	private int size;
+
+	/** Whether the writer is writing messages taken from the ring. */
+	private boolean writing;
+
+	/** Whether the output is closed. */
+	private boolean closed;
+
+	/** The error of the last write, reported to the next caller. */
+	private IOException error;
+
+	/** The thread writing the messages. */
+	private final Thread writer;
+
+	/** The hook writing the pending messages when the virtual machine exits. */
+	private final Thread shutdownHook;
+
+	/**
+	 * Creates an output with a ring buffer of {@link #DEFAULT_CAPACITY} slots.
+	 *
+	 * @param output the stream written
+	 */
+	public AsyncLogOutput(OutputStream output) {
+		this(output, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an output.
+	 *
+	 * @param output the stream written
+	 * @param capacity the number of messages that can wait to be written
+	 */
+	public AsyncLogOutput(OutputStream output, int capacity) {
+		if (output == null) {
+			throw new IllegalArgumentException("The log output is null");
+		}
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity of the log output must be positive");
+		}
+		this.output = new BufferedOutputStream(output, BUFFER_SIZE);
+		ring = new byte[capacity][];
+		writer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				writeMessages();
+			}
+		}, "AsyncLogOutput");
+		writer.setDaemon(true);
+		writer.start();
+		shutdownHook = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		put(new byte[] { (byte) b });
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return;
+		}
+		byte[] message = new byte[len];
+		System.arraycopy(b, off, message, 0, len);
+		put(message);
+	}
+
+	/**
+	 * Waits until every message has been written, then flushes the stream written.
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		try {
+			while (size > 0 || writing) {
+				wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		checkError();
+		output.flush();
+	}
+
+	/**
+	 * Writes the pending messages and stops the thread. The stream written is flushed but not
+	 * closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			flush();
+			closed = true;
+			notifyAll();
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// the virtual machine is already shutting down
+		}
+	}
+
+	/**
+	 * Adds a message to the ring, waiting for a free slot.
+	 *
+	 * @param message the message
+	 * @throws IOException if the output is closed or the last write failed
+	 */
+	private synchronized void put(byte[] message) throws IOException {
+		try {
+			while (size == ring.length && !closed) {
+				wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		if (closed) {
+			throw new IOException("The log output is closed");
+		}
+		checkError();
+		ring[(head + size) % ring.length] = message;
+		size++;
+		if (size == 1) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Reports the error of the last write.
+	 *
+	 * @throws IOException the error
+	 */
+	private void checkError() throws IOException {
+		if (error != null) {
+			IOException e = error;
+			error = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the messages until the output is closed. The messages waiting are taken together,
+	 * and the stream is flushed when no message is left.
+	 */
+	private void writeMessages() {
+		byte[][] batch = new byte[ring.length][];
+		while (true) {
+			int count;
+			synchronized (this) {
+				writing = false;
+				notifyAll();
+				try {
+					while (size == 0 && !closed) {
+						wait();
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (size == 0) {
+					return;
+				}
+				count = size;
+				for (int i = 0; i < count; i++) {
+					int slot = (head + i) % ring.length;
+					batch[i] = ring[slot];
+					ring[slot] = null;
+				}
+				head = (head + count) % ring.length;
+				size = 0;
+				writing = true;
+				notifyAll();
+			}
+			try {
+				for (int i = 0; i < count; i++) {
+					output.write(batch[i]);
+					batch[i] = null;
+				}
+				if (isIdle()) {
+					output.flush();
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					error = e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether no message is waiting.
+	 *
+	 * @return true, if the ring is empty
+	 */
+	private synchronized boolean isIdle() {
+		return size == 0;
+	}
+
+}
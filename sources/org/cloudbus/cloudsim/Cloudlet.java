@@ -14,6 +14,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * Cloudlet is an extension to the cloudlet. It stores, despite all the
@@ -54,7 +55,7 @@ public class Cloudlet {
 	/** The status of this Cloudlet. */
 	private int status;
 
-	/** The format of decimal numbers. */
+	/** The format of decimal numbers, created with the history. */
 	private DecimalFormat num;
 
 	/** The time where this Cloudlet completes. */
@@ -74,16 +75,20 @@ public class Cloudlet {
 	private final boolean record;
 
 	/** The newline. */
-	private String newline;
+	private static final String NEWLINE = System.getProperty("line.separator");
 
-	/** The history. */
+	/** The history, created by the first transaction recorded. */
 	private StringBuffer history;
 
-	/** The res list. */
-	private final List<Resource> resList;
+	/** The latest resource, or <tt>null</tt> if none. */
+	private Resource resource;
 
-	/** The index. */
-	private int index;
+	/**
+	 * All the resources in the order this Cloudlet moved to them. Since a
+	 * Cloudlet is normally executed on a single resource, kept in
+	 * {@link #resource}, the list is only created when it moves to a second one.
+	 */
+	private List<Resource> resList;
 
 	/** The class type of Cloudlet for resource scheduling. */
 	private int classType;
@@ -300,11 +305,6 @@ public class Cloudlet {
 		this.cloudletFileSize = Math.max(1, cloudletFileSize);
 		this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
 
-		// Normally, a Cloudlet is only executed on a resource without being
-		// migrated to others. Hence, to reduce memory consumption, set the
-		// size of this ArrayList to be less than the default one.
-		resList = new ArrayList<Resource>(2);
-		index = -1;
 		this.record = record;
 
 		vmId = -1;
@@ -423,14 +423,30 @@ public class Cloudlet {
 		return this.priority;
 	}
 
-	public static int[] array;
+	/** The priority array of each simulation context. */
+	private static final SimulationContext.Key<PriorityArray> ARRAY = new SimulationContext.Key<PriorityArray>() {
+
+		@Override
+		protected PriorityArray initialValue() {
+			return new PriorityArray();
+		}
+	};
+
+	/**
+	 * The priority array of a simulation context.
+	 */
+	private static class PriorityArray {
+
+		/** The array, or null if none was set. */
+		private int[] array;
+	}
 
 	public static void setArray(int[] arr) {
-		array = arr;
+		SimulationContext.current().get(ARRAY).array = arr;
 	}
 
 	public static int[] getArray() {
-		return array;
+		return SimulationContext.current().get(ARRAY).array;
 	}
 
 	/**
@@ -472,12 +488,12 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public double getWaitingTime() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0;
 		}
 
 		// use the latest resource submission time
-		final double subTime = resList.get(index).submissionTime;
+		final double subTime = resource.submissionTime;
 		return execStartTime - subTime;
 	}
 
@@ -570,11 +586,11 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public long getCloudletFinishedSoFar() {
-		if (index == -1) {
+		if (resource == null) {
 			return cloudletLength;
 		}
 
-		final long finish = resList.get(index).finishedSoFar;
+		final long finish = resource.finishedSoFar;
 		if (finish > cloudletLength) {
 			return cloudletLength;
 		}
@@ -591,14 +607,14 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public boolean isFinished() {
-		if (index == -1) {
+		if (resource == null) {
 			return false;
 		}
 
 		boolean completed = false;
 
 		// if result is 0 or -ve then this Cloudlet has finished
-		final long finish = resList.get(index).finishedSoFar;
+		final long finish = resource.finishedSoFar;
 		final long result = cloudletLength - finish;
 		if (result <= 0.0) {
 			completed = true;
@@ -619,11 +635,11 @@ public class Cloudlet {
 	 */
 	public void setCloudletFinishedSoFar(final long length) {
 		// if length is -ve then ignore
-		if (length < 0.0 || index < 0) {
+		if (length < 0.0 || resource == null) {
 			return;
 		}
 
-		final Resource res = resList.get(index);
+		final Resource res = resource;
 		res.finishedSoFar = length;
 
 		if (record) {
@@ -666,10 +682,10 @@ public class Cloudlet {
 	 * @post $result >= -1
 	 */
 	public int getResourceId() {
-		if (index == -1) {
+		if (resource == null) {
 			return -1;
 		}
-		return resList.get(index).resourceId;
+		return resource.resourceId;
 	}
 
 	/**
@@ -715,19 +731,25 @@ public class Cloudlet {
 		res.resourceName = CloudSim.getEntityName(resourceID);
 
 		// add into a list if moving to a new grid resource
-		resList.add(res);
+		if (resource != null) {
+			if (resList == null) {
+				resList = new ArrayList<Resource>(2);
+				resList.add(resource);
+			}
+			resList.add(res);
+		}
 
-		if (index == -1 && record) {
+		if (resource == null && record) {
 			write("Allocates this Cloudlet to " + res.resourceName + " (ID #" + resourceID + ") with cost = $" + cost
 					+ "/sec");
 		} else if (record) {
-			final int id = resList.get(index).resourceId;
-			final String name = resList.get(index).resourceName;
+			final int id = resource.resourceId;
+			final String name = resource.resourceName;
 			write("Moves Cloudlet from " + name + " (ID #" + id + ") to " + res.resourceName + " (ID #" + resourceID
 					+ ") with cost = $" + cost + "/sec");
 		}
 
-		index++; // initially, index = -1
+		resource = res;
 	}
 
 	/**
@@ -738,15 +760,15 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public void setSubmissionTime(final double clockTime) {
-		if (clockTime < 0.0 || index < 0) {
+		if (clockTime < 0.0 || resource == null) {
 			return;
 		}
 
-		final Resource res = resList.get(index);
+		final Resource res = resource;
 		res.submissionTime = clockTime;
 
 		if (record) {
-			write("Sets the submission time to " + num.format(clockTime));
+			write("Sets the submission time to " + format(clockTime));
 		}
 	}
 
@@ -759,10 +781,10 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public double getSubmissionTime() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0.0;
 		}
-		return resList.get(index).submissionTime;
+		return resource.submissionTime;
 	}
 
 	/**
@@ -778,7 +800,7 @@ public class Cloudlet {
 	public void setExecStartTime(final double clockTime) {
 		execStartTime = clockTime;
 		if (record) {
-			write("Sets the execution start time to " + num.format(clockTime));
+			write("Sets the execution start time to " + format(clockTime));
 		}
 	}
 
@@ -807,17 +829,17 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public void setExecParam(final double wallTime, final double actualTime) {
-		if (wallTime < 0.0 || actualTime < 0.0 || index < 0) {
+		if (wallTime < 0.0 || actualTime < 0.0 || resource == null) {
 			return;
 		}
 
-		final Resource res = resList.get(index);
+		final Resource res = resource;
 		res.wallClockTime = wallTime;
 		res.actualCPUTime = actualTime;
 
 		if (record) {
-			write("Sets the wall clock time to " + num.format(wallTime) + " and the actual CPU time to "
-					+ num.format(actualTime));
+			write("Sets the wall clock time to " + format(wallTime) + " and the actual CPU time to "
+					+ format(actualTime));
 		}
 	}
 
@@ -965,10 +987,10 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public double getCostPerSec() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0.0;
 		}
-		return resList.get(index).costPerSec;
+		return resource.costPerSec;
 	}
 
 	/**
@@ -980,10 +1002,10 @@ public class Cloudlet {
 	 * @post $result >= 0.0
 	 */
 	public double getWallClockTime() {
-		if (index == -1) {
+		if (resource == null) {
 			return 0.0;
 		}
-		return resList.get(index).wallClockTime;
+		return resource.wallClockTime;
 	}
 
 	/**
@@ -994,14 +1016,17 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public String[] getAllResourceName() {
-		final int size = resList.size();
-		String[] data = null;
-
-		if (size > 0) {
-			data = new String[size];
-			for (int i = 0; i < size; i++) {
-				data[i] = resList.get(i).resourceName;
+		if (resList == null) {
+			if (resource == null) {
+				return null;
 			}
+			return new String[] { resource.resourceName };
+		}
+
+		final int size = resList.size();
+		final String[] data = new String[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = resList.get(i).resourceName;
 		}
 
 		return data;
@@ -1015,14 +1040,17 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public int[] getAllResourceId() {
-		final int size = resList.size();
-		int[] data = null;
-
-		if (size > 0) {
-			data = new int[size];
-			for (int i = 0; i < size; i++) {
-				data[i] = resList.get(i).resourceId;
+		if (resList == null) {
+			if (resource == null) {
+				return null;
 			}
+			return new int[] { resource.resourceId };
+		}
+
+		final int size = resList.size();
+		final int[] data = new int[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = resList.get(i).resourceId;
 		}
 
 		return data;
@@ -1139,10 +1167,16 @@ public class Cloudlet {
 	 * @return the resource by id
 	 */
 	public Resource getResourceById(final int resourceId) {
-		for (Resource resource : resList) {
-			if (resource.resourceId == resourceId) {
+		if (resList == null) {
+			if (resource != null && resource.resourceId == resourceId) {
 				return resource;
 			}
+			return null;
+		}
+		for (Resource res : resList) {
+			if (res.resourceId == resourceId) {
+				return res;
+			}
 		}
 		return null;
 	}
@@ -1173,24 +1207,35 @@ public class Cloudlet {
 			return;
 		}
 
-		if (num == null || history == null) { // Creates the history or
-												// transactions of this Cloudlet
-			newline = System.getProperty("line.separator");
-			num = new DecimalFormat("#0.00#"); // with 3 decimal spaces
+		if (history == null) { // Creates the history or transactions of this Cloudlet
 			history = new StringBuffer(1000);
 			history.append("Time below denotes the simulation time.");
-			history.append(System.getProperty("line.separator"));
+			history.append(NEWLINE);
 			history.append("Time (sec)       Description Cloudlet #" + cloudletId);
-			history.append(System.getProperty("line.separator"));
+			history.append(NEWLINE);
 			history.append("------------------------------------------");
-			history.append(System.getProperty("line.separator"));
-			history.append(num.format(CloudSim.clock()));
+			history.append(NEWLINE);
+			history.append(format(CloudSim.clock()));
 			history.append("   Creates Cloudlet ID #" + cloudletId);
-			history.append(System.getProperty("line.separator"));
+			history.append(NEWLINE);
 		}
 
-		history.append(num.format(CloudSim.clock()));
-		history.append("   " + str + newline);
+		history.append(format(CloudSim.clock()));
+		history.append("   " + str + NEWLINE);
+	}
+
+	/**
+	 * Formats a time of the history. The format is only created for a Cloudlet
+	 * that records its history.
+	 * 
+	 * @param time the time
+	 * @return the time with up to 3 decimals
+	 */
+	private String format(final double time) {
+		if (num == null) {
+			num = new DecimalFormat("#0.00#"); // with 3 decimal spaces
+		}
+		return num.format(time);
 	}
 
 	/**
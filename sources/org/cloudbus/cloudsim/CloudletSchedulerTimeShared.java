@@ -8,13 +8,23 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
  * CloudletSchedulerTimeShared implements a policy of scheduling performed by a virtual machine.
  * Cloudlets execute time-shared in VM.
+ * <p>
+ * The capacity of a pe is computed once for each phase of an update instead of once for each
+ * cloudlet. Since all the running cloudlets get the same mips per pe, the one that finishes first
+ * is always the one with the least remaining length per pe: the running cloudlets are kept in a
+ * heap by the virtual time, counted in MI done per pe, at which they finish, so the next finish
+ * time is found without going through all of them.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -34,6 +44,15 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	/** The current cp us. */
 	protected int currentCPUs;
 
+	/** The MI done per pe since the scheduler was created. */
+	private double virtualTime;
+
+	/** The virtual time at which each running cloudlet finishes. */
+	private final Map<ResCloudlet, Double> virtualFinishTimes;
+
+	/** The running cloudlets, by virtual finish time. */
+	private final PriorityQueue<ResCloudlet> finishQueue;
+
 	/**
 	 * Creates a new CloudletSchedulerTimeShared object. This method must be invoked before starting
 	 * the actual simulation.
@@ -47,6 +66,14 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		cloudletPausedList = new ArrayList<ResCloudlet>();
 		cloudletFinishedList = new ArrayList<ResCloudlet>();
 		currentCPUs = 0;
+		virtualFinishTimes = new HashMap<ResCloudlet, Double>();
+		finishQueue = new PriorityQueue<ResCloudlet>(11, new Comparator<ResCloudlet>() {
+
+			@Override
+			public int compare(ResCloudlet r1, ResCloudlet r2) {
+				return Double.compare(virtualFinishTimes.get(r1), virtualFinishTimes.get(r2));
+			}
+		});
 	}
 
 	/**
@@ -64,39 +91,49 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		setCurrentMipsShare(mipsShare);
 		double timeSpam = currentTime - getPreviousTime();
 
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			rcl.updateCloudletFinishedSoFar((long) (getCapacity(mipsShare) * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
-		}
-
 		if (getCloudletExecList().size() == 0) {
 			setPreviousTime(currentTime);
 			return 0.0;
 		}
 
-		// check finished cloudlets
-		double nextEvent = Double.MAX_VALUE;
-		List<ResCloudlet> toRemove = new ArrayList<ResCloudlet>();
+		// the cloudlets may have been changed by a subclass
+		if (finishQueue.size() != getCloudletExecList().size()) {
+			rebuildFinishQueue();
+		}
+
+		double capacity = getCapacity(mipsShare);
+		virtualTime += capacity * timeSpam;
+		List<ResCloudlet> toRemove = null;
 		for (ResCloudlet rcl : getCloudletExecList()) {
-			long remainingLength = rcl.getRemainingCloudletLength();
-			if (remainingLength == 0) {// finished: remove from the list
+			rcl.updateCloudletFinishedSoFar((long) (capacity * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
+			// check finished cloudlets
+			if (rcl.getRemainingCloudletLength() == 0) {
+				if (toRemove == null) {
+					toRemove = new ArrayList<ResCloudlet>();
+				}
 				toRemove.add(rcl);
+			}
+		}
+
+		if (toRemove != null) {
+			for (ResCloudlet rcl : toRemove) {
 				cloudletFinish(rcl);
-				continue;
+				removeFromFinishQueue(rcl);
 			}
+			getCloudletExecList().removeAll(toRemove);
 		}
-		getCloudletExecList().removeAll(toRemove);
 
-		// estimate finish time of cloudlets
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		// estimate finish time of the cloudlet that finishes first
+		double nextEvent = Double.MAX_VALUE;
+		ResCloudlet next = finishQueue.peek();
+		if (next != null) {
+			capacity = getCapacity(mipsShare);
 			double estimatedFinishTime = currentTime
-					+ (rcl.getRemainingCloudletLength() / (getCapacity(mipsShare) * rcl.getNumberOfPes()));
+					+ (next.getRemainingCloudletLength() / (capacity * next.getNumberOfPes()));
 			if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
 				estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
 			}
-
-			if (estimatedFinishTime < nextEvent) {
-				nextEvent = estimatedFinishTime;
-			}
+			nextEvent = estimatedFinishTime;
 		}
 
 		setPreviousTime(currentTime);
@@ -133,6 +170,40 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		return capacity;
 	}
 
+	/**
+	 * Adds a running cloudlet to the finish queue, from its remaining length.
+	 * 
+	 * @param rcl the cloudlet
+	 */
+	private void addToFinishQueue(ResCloudlet rcl) {
+		virtualFinishTimes.put(rcl, virtualTime + (double) rcl.getRemainingCloudletLength()
+				/ rcl.getNumberOfPes());
+		finishQueue.add(rcl);
+	}
+
+	/**
+	 * Removes a cloudlet that no longer runs from the finish queue.
+	 * 
+	 * @param rcl the cloudlet
+	 */
+	private void removeFromFinishQueue(ResCloudlet rcl) {
+		if (virtualFinishTimes.containsKey(rcl)) {
+			finishQueue.remove(rcl);
+			virtualFinishTimes.remove(rcl);
+		}
+	}
+
+	/**
+	 * Rebuilds the finish queue from the cloudlet exec list.
+	 */
+	private void rebuildFinishQueue() {
+		finishQueue.clear();
+		virtualFinishTimes.clear();
+		for (ResCloudlet rcl : getCloudletExecList()) {
+			addToFinishQueue(rcl);
+		}
+	}
+
 	/**
 	 * Cancels execution of a cloudlet.
 	 * 
@@ -172,6 +243,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 
 		if (found) {
 			ResCloudlet rcl = getCloudletExecList().remove(position);
+			removeFromFinishQueue(rcl);
 			if (rcl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(rcl);
 			} else {
@@ -223,6 +295,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		if (found) {
 			// remove cloudlet from the exec list and put it in the paused list
 			ResCloudlet rcl = getCloudletExecList().remove(position);
+			removeFromFinishQueue(rcl);
 			if (rcl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(rcl);
 			} else {
@@ -274,6 +347,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 			ResCloudlet rgl = getCloudletPausedList().remove(position);
 			rgl.setCloudletStatus(Cloudlet.INEXEC);
 			getCloudletExecList().add(rgl);
+			addToFinishQueue(rgl);
 
 			// calculate the expected time for cloudlet completion
 			// first: how many PEs do we have?
@@ -312,6 +386,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		double extraSize = getCapacity(getCurrentMipsShare()) * fileTransferTime;
 		long length = (long) (cloudlet.getCloudletLength() + extraSize);
 		cloudlet.setCloudletLength(length);
+		addToFinishQueue(rcl);
 
 		return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
 	}
@@ -412,6 +487,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	@Override
 	public Cloudlet migrateCloudlet() {
 		ResCloudlet rgl = getCloudletExecList().remove(0);
+		removeFromFinishQueue(rgl);
 		rgl.finalizeCloudlet();
 		return rgl.getCloudlet();
 	}
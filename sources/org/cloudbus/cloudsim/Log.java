@@ -10,10 +10,25 @@ package org.cloudbus.cloudsim;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * The Log class used for performing loggin of the simulation process. It provides the ability to
- * substitute the output stream by any OutputStream subclass.
+ * substitute the output stream by any OutputStream subclass. The output and the disable output
+ * flag are kept per {@link SimulationContext}, so concurrent simulations can log to different
+ * streams.
+ * <p>
+ * Messages have a {@link Level}; the methods without one print at {@link Level#INFO}, and the
+ * messages below the level set with {@link #setLevel(Level)} are dropped. The printConcat and
+ * format methods take the parts of a message instead of the message, so nothing is built when
+ * the message is dropped. Wrapping the output in an {@link AsyncLogOutput} moves the writing to a
+ * background thread.
+ * <p>
+ * Independently of the messages, a simulation can write a trace of its events, one JSON object
+ * per line, to the stream set with {@link #setTraceOutput(OutputStream)}.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
@@ -23,11 +38,42 @@ public class Log {
 	/** The Constant LINE_SEPARATOR. */
 	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-	/** The output. */
-	private static OutputStream output;
+	/** The charset of the trace. */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * The levels of the messages, from the least to the most severe.
+	 */
+	public enum Level {
+		DEBUG, INFO, WARNING, ERROR
+	}
+
+	/** The log settings of each simulation context. */
+	private static final SimulationContext.Key<Settings> SETTINGS = new SimulationContext.Key<Settings>() {
+
+		@Override
+		protected Settings initialValue() {
+			return new Settings();
+		}
+	};
 
-	/** The disable output flag. */
-	private static boolean disabled;
+	/**
+	 * The log settings of a simulation context.
+	 */
+	private static class Settings {
+
+		/** The output. */
+		private OutputStream output;
+
+		/** The disable output flag. */
+		private boolean disabled;
+
+		/** The lowest level printed. */
+		private Level level = Level.INFO;
+
+		/** The output of the trace, or null if no trace is written. */
+		private OutputStream traceOutput;
+	}
 
 	/**
 	 * Prints the message.
@@ -35,12 +81,8 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void print(String message) {
-		if (!isDisabled()) {
-			try {
-				getOutput().write(message.getBytes());
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		if (isEnabled(Level.INFO)) {
+			write(message);
 		}
 	}
 
@@ -50,8 +92,8 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void print(Object message) {
-		if (!isDisabled()) {
-			print(String.valueOf(message));
+		if (isEnabled(Level.INFO)) {
+			write(String.valueOf(message));
 		}
 	}
 
@@ -61,8 +103,8 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(String message) {
-		if (!isDisabled()) {
-			print(message + LINE_SEPARATOR);
+		if (isEnabled(Level.INFO)) {
+			write(message + LINE_SEPARATOR);
 		}
 	}
 
@@ -70,8 +112,8 @@ public class Log {
 	 * Prints the empty line.
 	 */
 	public static void printLine() {
-		if (!isDisabled()) {
-			print(LINE_SEPARATOR);
+		if (isEnabled(Level.INFO)) {
+			write(LINE_SEPARATOR);
 		}
 	}
 
@@ -81,8 +123,8 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(Object message) {
-		if (!isDisabled()) {
-			printLine(String.valueOf(message));
+		if (isEnabled(Level.INFO)) {
+			write(String.valueOf(message) + LINE_SEPARATOR);
 		}
 	}
 
@@ -93,8 +135,8 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void format(String format, Object... args) {
-		if (!isDisabled()) {
-			print(String.format(format, args));
+		if (isEnabled(Level.INFO)) {
+			write(String.format(format, args));
 		}
 	}
 
@@ -105,8 +147,205 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void formatLine(String format, Object... args) {
-		if (!isDisabled()) {
-			printLine(String.format(format, args));
+		if (isEnabled(Level.INFO)) {
+			write(String.format(format, args) + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Prints the message at a level.
+	 * 
+	 * @param level the level
+	 * @param message the message
+	 */
+	public static void printLine(Level level, String message) {
+		if (isEnabled(level)) {
+			write(message + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Prints the concatenation of the parts of a message. The parts are only converted to
+	 * strings if the message is printed.
+	 * 
+	 * @param messages the parts of the message
+	 */
+	public static void printConcat(Object... messages) {
+		if (isEnabled(Level.INFO)) {
+			write(concat(messages, false));
+		}
+	}
+
+	/**
+	 * Prints the concatenation of the parts of a message as a line. The parts are only converted
+	 * to strings if the message is printed, but the array of the parts is still built, so a
+	 * caller on a hot path checks {@link #isEnabled(Level)} first.
+	 * 
+	 * @param messages the parts of the message
+	 */
+	public static void printConcatLine(Object... messages) {
+		if (isEnabled(Level.INFO)) {
+			write(concat(messages, true));
+		}
+	}
+
+	/**
+	 * Prints the concatenation of the parts of a message as a line at a level.
+	 * 
+	 * @param level the level
+	 * @param messages the parts of the message
+	 */
+	public static void printConcatLine(Level level, Object... messages) {
+		if (isEnabled(level)) {
+			write(concat(messages, true));
+		}
+	}
+
+	/**
+	 * Prints a line formated as in String.format() at a level.
+	 * 
+	 * @param level the level
+	 * @param format the format
+	 * @param args the args
+	 */
+	public static void formatLine(Level level, String format, Object... args) {
+		if (isEnabled(level)) {
+			write(String.format(format, args) + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Writes a message to the output, once its level has been checked.
+	 * 
+	 * @param message the message
+	 */
+	private static void write(String message) {
+		try {
+			getOutput().write(message.getBytes());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Concatenates the parts of a message.
+	 * 
+	 * @param messages the parts
+	 * @param line whether to end the message with a line separator
+	 * @return the message
+	 */
+	private static String concat(Object[] messages, boolean line) {
+		StringBuilder buffer = new StringBuilder();
+		for (Object message : messages) {
+			buffer.append(message);
+		}
+		if (line) {
+			buffer.append(LINE_SEPARATOR);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Writes an event to the trace, as a JSON object on one line with the current simulation
+	 * time, the name of the event and the given fields. Numbers and booleans are written as
+	 * such, and other values as strings.
+	 * 
+	 * @param event the name of the event
+	 * @param fields the names and values of the fields, alternately
+	 */
+	public static void trace(String event, Object... fields) {
+		OutputStream traceOutput = getTraceOutput();
+		if (traceOutput == null) {
+			return;
+		}
+		if (fields.length % 2 != 0) {
+			throw new IllegalArgumentException("A trace field has no value");
+		}
+		StringBuilder buffer = new StringBuilder(64 + 16 * fields.length);
+		buffer.append("{\"time\":");
+		appendJson(buffer, CloudSim.clock());
+		buffer.append(",\"event\":");
+		appendJson(buffer, event);
+		for (int i = 0; i < fields.length; i += 2) {
+			buffer.append(',');
+			appendJson(buffer, String.valueOf(fields[i]));
+			buffer.append(':');
+			appendJson(buffer, fields[i + 1]);
+		}
+		buffer.append("}\n");
+		try {
+			traceOutput.write(buffer.toString().getBytes(UTF_8));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Appends a value to a JSON object.
+	 * 
+	 * @param buffer the JSON object
+	 * @param value the value
+	 */
+	private static void appendJson(StringBuilder buffer, Object value) {
+		if (value == null) {
+			buffer.append("null");
+		} else if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				buffer.append("null");
+			} else {
+				buffer.append(number);
+			}
+		} else if (value instanceof Number || value instanceof Boolean) {
+			buffer.append(value);
+		} else {
+			String string = value.toString();
+			buffer.append('"');
+			for (int i = 0; i < string.length(); i++) {
+				char c = string.charAt(i);
+				switch (c) {
+					case '"':
+						buffer.append("\\\"");
+						break;
+					case '\\':
+						buffer.append("\\\\");
+						break;
+					case '\n':
+						buffer.append("\\n");
+						break;
+					case '\r':
+						buffer.append("\\r");
+						break;
+					case '\t':
+						buffer.append("\\t");
+						break;
+					default:
+						if (c < 0x20) {
+							buffer.append(String.format("\\u%04x", (int) c));
+						} else {
+							buffer.append(c);
+						}
+				}
+			}
+			buffer.append('"');
+		}
+	}
+
+	/**
+	 * Flushes the output and the trace, which waits until an {@link AsyncLogOutput} has written
+	 * what it holds.
+	 */
+	public static void flush() {
+		Settings settings = SimulationContext.current().get(SETTINGS);
+		try {
+			if (settings.output != null) {
+				settings.output.flush();
+			}
+			if (settings.traceOutput != null) {
+				settings.traceOutput.flush();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
@@ -116,7 +355,7 @@ public class Log {
 	 * @param _output the new output
 	 */
 	public static void setOutput(OutputStream _output) {
-		output = _output;
+		SimulationContext.current().get(SETTINGS).output = _output;
 	}
 
 	/**
@@ -125,10 +364,11 @@ public class Log {
 	 * @return the output
 	 */
 	public static OutputStream getOutput() {
-		if (output == null) {
-			setOutput(System.out);
+		Settings settings = SimulationContext.current().get(SETTINGS);
+		if (settings.output == null) {
+			settings.output = System.out;
 		}
-		return output;
+		return settings.output;
 	}
 
 	/**
@@ -137,7 +377,7 @@ public class Log {
 	 * @param _disabled the new disabled
 	 */
 	public static void setDisabled(boolean _disabled) {
-		disabled = _disabled;
+		SimulationContext.current().get(SETTINGS).disabled = _disabled;
 	}
 
 	/**
@@ -146,7 +386,66 @@ public class Log {
 	 * @return true, if is disable
 	 */
 	public static boolean isDisabled() {
-		return disabled;
+		return SimulationContext.current().get(SETTINGS).disabled;
+	}
+
+	/**
+	 * Sets the lowest level printed.
+	 * 
+	 * @param level the level
+	 */
+	public static void setLevel(Level level) {
+		if (level == null) {
+			throw new IllegalArgumentException("The log level is null");
+		}
+		SimulationContext.current().get(SETTINGS).level = level;
+	}
+
+	/**
+	 * Gets the lowest level printed.
+	 * 
+	 * @return the level
+	 */
+	public static Level getLevel() {
+		return SimulationContext.current().get(SETTINGS).level;
+	}
+
+	/**
+	 * Checks if the messages of a level are printed.
+	 * 
+	 * @param level the level
+	 * @return true, if the output is enabled and the level is not below the lowest level printed
+	 */
+	public static boolean isEnabled(Level level) {
+		Settings settings = SimulationContext.current().get(SETTINGS);
+		return !settings.disabled && level.compareTo(settings.level) >= 0;
+	}
+
+	/**
+	 * Sets the output of the trace.
+	 * 
+	 * @param traceOutput the output, or null to stop writing the trace
+	 */
+	public static void setTraceOutput(OutputStream traceOutput) {
+		SimulationContext.current().get(SETTINGS).traceOutput = traceOutput;
+	}
+
+	/**
+	 * Gets the output of the trace.
+	 * 
+	 * @return the output, or null if no trace is written
+	 */
+	public static OutputStream getTraceOutput() {
+		return SimulationContext.current().get(SETTINGS).traceOutput;
+	}
+
+	/**
+	 * Checks if a trace is written. Callers check it before gathering the fields of an event.
+	 * 
+	 * @return true, if a trace output is set
+	 */
+	public static boolean isTracing() {
+		return getTraceOutput() != null;
 	}
 
 	/**
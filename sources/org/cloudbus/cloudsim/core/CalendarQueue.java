@@ -0,0 +1,548 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements a calendar queue future event list (R. Brown, "Calendar Queues: A Fast
+ * O(1) Priority Queue Implementation for the Simulation Event Set Problem", CACM 31(10), 1988).
+ * The events are hashed by their event time into an array of buckets, each one covering a time
+ * interval of the same width, and each bucket keeps its events sorted. The number of buckets and
+ * their width are adjusted as the queue grows and shrinks, so that adding and removing the first
+ * event take amortized constant time, instead of the logarithmic time (plus an allocation) of the
+ * {@link FutureQueue}.
+ * <p>
+ * The events are ordered exactly as in the {@link FutureQueue}: by event time and then by serial.
+ * Iterating the queue visits the events in that order; the queue must not be modified during the
+ * iteration other than through {@link Iterator#remove()}.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventList
+ * @see FutureQueue
+ */
+public class CalendarQueue implements FutureEventList {
+
+	/** The default number of buckets. */
+	public static final int DEFAULT_BUCKETS = 16;
+
+	/** The default width of a bucket, in simulation time units. */
+	public static final double DEFAULT_BUCKET_WIDTH = 1.0;
+
+	/** The minimal number of buckets. */
+	private static final int MIN_BUCKETS = 2;
+
+	/** The number of events sampled to estimate the bucket width on resize. */
+	private static final int SAMPLE_SIZE = 25;
+
+	/** The first node of each bucket. */
+	private Node[] heads;
+
+	/** The last node of each bucket. */
+	private Node[] tails;
+
+	/** The mask used to map a virtual bucket to a bucket, i.e. the number of buckets - 1. */
+	private int mask;
+
+	/** The width of a bucket. */
+	private double width;
+
+	/** The virtual bucket (time / width) from which the search for the first event starts. */
+	private long currentBucket;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** Whether the buckets may be resized; disabled while sampling the queue. */
+	private boolean resizeEnabled = true;
+
+	/** Nodes released by removed events, reused by new ones. */
+	private Node freeNodes;
+
+	/**
+	 * Creates a new calendar queue with the default number of buckets and bucket width.
+	 */
+	public CalendarQueue() {
+		this(DEFAULT_BUCKETS, DEFAULT_BUCKET_WIDTH);
+	}
+
+	/**
+	 * Creates a new calendar queue.
+	 *
+	 * @param buckets the initial number of buckets, rounded up to a power of two
+	 * @param bucketWidth the initial width of a bucket, ideally about three times the average
+	 *            time between consecutive events
+	 * @pre buckets > 0
+	 * @pre bucketWidth > 0
+	 */
+	public CalendarQueue(int buckets, double bucketWidth) {
+		if (buckets <= 0) {
+			throw new IllegalArgumentException("The number of buckets should be positive, but is:" + buckets);
+		}
+		if (!(bucketWidth > 0) || Double.isInfinite(bucketWidth)) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is:" + bucketWidth);
+		}
+		int n = MIN_BUCKETS;
+		while (n < buckets) {
+			n <<= 1;
+		}
+		heads = new Node[n];
+		tails = new Node[n];
+		mask = n - 1;
+		width = bucketWidth;
+	}
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	/**
+	 * Add a new event to the head of the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		return heads[locateFirst()].event;
+	}
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		int i = locateFirst();
+		Node node = heads[i];
+		heads[i] = node.next;
+		if (node.next == null) {
+			tails[i] = null;
+		}
+		size--;
+		SimEvent event = release(node);
+		if (size < heads.length / 2 && heads.length > MIN_BUCKETS) {
+			resize(heads.length / 2);
+		}
+		return event;
+	}
+
+	/**
+	 * Removes all the events scheduled for the given time from the head of the queue and appends
+	 * them, in order, to the given buffer. These events are all at the head of the same bucket, so
+	 * the bucket is located only once for the whole batch.
+	 *
+	 * @param time the event time
+	 * @param buffer the list to which the removed events are appended
+	 * @return the number of events removed
+	 */
+	@Override
+	public int pollAllAt(double time, List<SimEvent> buffer) {
+		if (size == 0) {
+			return 0;
+		}
+		int i = locateFirst();
+		int count = 0;
+		Node node = heads[i];
+		while (node != null && node.event.eventTime() == time) {
+			Node next = node.next;
+			buffer.add(release(node));
+			node = next;
+			count++;
+		}
+		heads[i] = node;
+		if (node == null) {
+			tails[i] = null;
+		}
+		size -= count;
+		if (size < heads.length / 2 && heads.length > MIN_BUCKETS) {
+			resize(heads.length / 2);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns an iterator to the queue.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new CalendarIterator();
+	}
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean remove(SimEvent event) {
+		if (event == null || size == 0) {
+			return false;
+		}
+		int i = (int) (virtualBucket(event.eventTime()) & mask);
+		Node prev = null;
+		for (Node node = heads[i]; node != null; prev = node, node = node.next) {
+			if (node.event == event) {
+				if (prev == null) {
+					heads[i] = node.next;
+				} else {
+					prev.next = node.next;
+				}
+				if (node.next == null) {
+					tails[i] = prev;
+				}
+				size--;
+				release(node);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	/**
+	 * Clears the queue.
+	 */
+	@Override
+	public void clear() {
+		Arrays.fill(heads, null);
+		Arrays.fill(tails, null);
+		size = 0;
+		currentBucket = 0;
+	}
+
+	/**
+	 * Gets the current number of buckets.
+	 *
+	 * @return the number of buckets
+	 */
+	public int getNumberOfBuckets() {
+		return heads.length;
+	}
+
+	/**
+	 * Gets the current width of a bucket.
+	 *
+	 * @return the bucket width
+	 */
+	public double getBucketWidth() {
+		return width;
+	}
+
+	/**
+	 * Maps an event time to its virtual bucket. The mapping is monotone, so the events of a
+	 * virtual bucket always precede the events of the following ones.
+	 *
+	 * @param time the event time
+	 * @return the virtual bucket
+	 */
+	private long virtualBucket(double time) {
+		return (long) (time / width);
+	}
+
+	/**
+	 * Inserts an event, which already has its serial, in its bucket.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		Node node = freeNodes;
+		if (node == null) {
+			node = new Node();
+		} else {
+			freeNodes = node.next;
+			node.next = null;
+		}
+		node.event = event;
+		link(node);
+		if (size > 2 * heads.length) {
+			resize(2 * heads.length);
+		}
+	}
+
+	/**
+	 * Links a node in its bucket, keeping the bucket sorted. Events sent in time order are
+	 * appended to the tail of the bucket in constant time.
+	 *
+	 * @param node the node
+	 */
+	private void link(Node node) {
+		SimEvent event = node.event;
+		long bucket = virtualBucket(event.eventTime());
+		int i = (int) (bucket & mask);
+		Node tail = tails[i];
+		if (tail == null) {
+			heads[i] = node;
+			tails[i] = node;
+		} else if (event.compareTo(tail.event) > 0) {
+			tail.next = node;
+			tails[i] = node;
+		} else if (event.compareTo(heads[i].event) < 0) {
+			node.next = heads[i];
+			heads[i] = node;
+		} else {
+			Node prev = heads[i];
+			while (event.compareTo(prev.next.event) > 0) {
+				prev = prev.next;
+			}
+			node.next = prev.next;
+			prev.next = node;
+		}
+		if (size == 0 || bucket < currentBucket) {
+			currentBucket = bucket;
+		}
+		size++;
+	}
+
+	/**
+	 * Returns a node to the free list.
+	 *
+	 * @param node the node
+	 * @return the event the node was holding
+	 */
+	private SimEvent release(Node node) {
+		SimEvent event = node.event;
+		node.event = null;
+		node.next = freeNodes;
+		freeNodes = node;
+		return event;
+	}
+
+	/**
+	 * Finds the bucket holding the first event, advancing the current bucket up to it. If a whole
+	 * year of buckets is empty, the first event is found by a direct search of the buckets.
+	 *
+	 * @return the index of the bucket whose head is the first event
+	 * @pre size > 0
+	 */
+	private int locateFirst() {
+		for (int k = 0; k < heads.length; k++) {
+			int i = (int) (currentBucket & mask);
+			Node head = heads[i];
+			if (head != null && virtualBucket(head.event.eventTime()) == currentBucket) {
+				return i;
+			}
+			currentBucket++;
+		}
+		int first = -1;
+		for (int i = 0; i < heads.length; i++) {
+			if (heads[i] != null && (first < 0 || heads[i].event.compareTo(heads[first].event) < 0)) {
+				first = i;
+			}
+		}
+		currentBucket = virtualBucket(heads[first].event.eventTime());
+		return first;
+	}
+
+	/**
+	 * Changes the number of buckets and recomputes the bucket width from the separation of the
+	 * first events in the queue.
+	 *
+	 * @param buckets the new number of buckets
+	 */
+	private void resize(int buckets) {
+		if (!resizeEnabled) {
+			return;
+		}
+		double newWidth = sampleWidth();
+		Node[] oldHeads = heads;
+		heads = new Node[buckets];
+		tails = new Node[buckets];
+		mask = buckets - 1;
+		width = newWidth;
+		size = 0;
+		for (Node head : oldHeads) {
+			Node node = head;
+			while (node != null) {
+				Node next = node.next;
+				node.next = null;
+				link(node);
+				node = next;
+			}
+		}
+	}
+
+	/**
+	 * Estimates a bucket width of about three times the average separation of the first events,
+	 * ignoring the separations that are more than twice the average.
+	 *
+	 * @return the new bucket width, or the current one if it cannot be estimated
+	 */
+	private double sampleWidth() {
+		if (size < 2) {
+			return width;
+		}
+		int n = Math.min(size, SAMPLE_SIZE);
+		SimEvent[] sample = new SimEvent[n];
+		resizeEnabled = false;
+		for (int k = 0; k < n; k++) {
+			sample[k] = poll();
+		}
+		for (int k = 0; k < n; k++) {
+			insert(sample[k]);
+		}
+		resizeEnabled = true;
+
+		double average = (sample[n - 1].eventTime() - sample[0].eventTime()) / (n - 1);
+		if (!(average > 0) || Double.isInfinite(average)) {
+			return width;
+		}
+		double sum = 0;
+		int count = 0;
+		for (int k = 1; k < n; k++) {
+			double separation = sample[k].eventTime() - sample[k - 1].eventTime();
+			if (separation <= 2 * average) {
+				sum += separation;
+				count++;
+			}
+		}
+		if (sum > 0) {
+			return 3 * sum / count;
+		}
+		return 3 * average;
+	}
+
+	/**
+	 * A node of a bucket.
+	 */
+	private static final class Node {
+
+		/** The event. */
+		private SimEvent event;
+
+		/** The next node in the bucket. */
+		private Node next;
+
+	}
+
+	/**
+	 * Iterates the events in processing order, using one cursor per bucket.
+	 */
+	private final class CalendarIterator implements Iterator<SimEvent> {
+
+		/** The next node of each bucket. */
+		private final Node[] cursors = heads.clone();
+
+		/** The virtual bucket from which the search for the next event starts. */
+		private long bucket = currentBucket;
+
+		/** The number of events not visited yet. */
+		private int remaining = size;
+
+		/** The last event returned. */
+		private SimEvent last;
+
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		@Override
+		public SimEvent next() {
+			if (remaining == 0) {
+				throw new NoSuchElementException();
+			}
+			int i = locateNext();
+			Node node = cursors[i];
+			cursors[i] = node.next;
+			remaining--;
+			last = node.event;
+			return last;
+		}
+
+		@Override
+		public void remove() {
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+			CalendarQueue.this.remove(last);
+			last = null;
+		}
+
+		private int locateNext() {
+			for (int k = 0; k < cursors.length; k++) {
+				int i = (int) (bucket & mask);
+				Node node = cursors[i];
+				if (node != null && virtualBucket(node.event.eventTime()) == bucket) {
+					return i;
+				}
+				bucket++;
+			}
+			int next = -1;
+			for (int i = 0; i < cursors.length; i++) {
+				if (cursors[i] != null && (next < 0 || cursors[i].event.compareTo(cursors[next].event) < 0)) {
+					next = i;
+				}
+			}
+			bucket = virtualBucket(cursors[next].event.eventTime());
+			return next;
+		}
+
+	}
+
+}
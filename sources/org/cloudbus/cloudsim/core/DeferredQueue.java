@@ -8,15 +8,24 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. The events are kept
+ * in one mailbox per destination entity, so that looking up the events of an entity does not
+ * depend on the events waiting for the other entities. Each mailbox is a linked list in temporal
+ * order, and its events are also linked by tag and by source, so that {@link PredicateAny},
+ * {@link PredicateType} and {@link PredicateFrom} are resolved without testing every event of
+ * the mailbox. Any other predicate is matched against the events of the mailbox in order.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
@@ -24,65 +33,522 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The index of the links of the list of a mailbox. */
+	private static final int MAILBOX = 0;
+
+	/** The index of the links of the list of a tag. */
+	private static final int TAG = 1;
+
+	/** The index of the links of the list of a source. */
+	private static final int SOURCE = 2;
+
+	/** The mailboxes, indexed by the id of the destination entity. */
+	private final List<Mailbox> mailboxes = new ArrayList<Mailbox>();
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** The number of events in the queue. */
+	private int size = 0;
+
+	/** The number of events added to the queue, used to order the events with the same time. */
+	private long arrivals = 0;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
+		int dest = newEvent.getDestination();
+		while (mailboxes.size() <= dest) {
+			mailboxes.add(null);
+		}
+		Mailbox mailbox = mailboxes.get(dest);
+		if (mailbox == null) {
+			mailbox = new Mailbox();
+			mailboxes.set(dest, mailbox);
+		}
+
 		// The event has to be inserted as the last of all events
 		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
-		}
+		Node node = new Node(newEvent, arrivals++);
+		node.mailbox = mailbox;
+		node.tagChain = mailbox.chain(mailbox.tags, newEvent.getTag());
+		node.sourceChain = mailbox.chain(mailbox.sources, newEvent.getSource());
+		mailbox.events.insert(node, MAILBOX);
+		node.tagChain.insert(node, TAG);
+		node.sourceChain.insert(node, SOURCE);
+		size++;
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+	/**
+	 * Counts the events waiting for an entity that match a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return 0;
+		}
+		if (p.getClass() == PredicateAny.class) {
+			return mailbox.events.size;
+		}
+		if (p.getClass() == PredicateType.class) {
+			return count(mailbox.tags, ((PredicateType) p).getTags());
+		}
+		if (p.getClass() == PredicateFrom.class) {
+			return count(mailbox.sources, ((PredicateFrom) p).getSourceIds());
+		}
+		int count = 0;
+		for (Node node = mailbox.events.head; node != null; node = node.next(MAILBOX)) {
+			if (p.match(node.event)) {
+				count++;
 			}
 		}
+		return count;
+	}
+
+	/**
+	 * Gets the first event waiting for an entity that matches a predicate, without removing it.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the first matching event, or <tt>null</tt> if none matches
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return null;
+		}
+		Node node = findFirst(mailbox, p);
+		return node == null ? null : node.event;
+	}
 
-		list.add(newEvent);
+	/**
+	 * Removes the first event waiting for an entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if none matches
+	 */
+	public SimEvent select(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return null;
+		}
+		Node node = findFirst(mailbox, p);
+		if (node == null) {
+			return null;
+		}
+		remove(node);
+		return node.event;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue. The events are grouped by destination
+	 * entity and, for each entity, are returned in temporal order.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		return new Iterator<SimEvent>() {
+
+			private int dest = 0;
+
+			private Node next = advance(null);
+
+			private Node last;
+
+			private Node advance(Node node) {
+				if (node != null && node.next(MAILBOX) != null) {
+					return node.next(MAILBOX);
+				}
+				if (node != null) {
+					dest++;
+				}
+				for (; dest < mailboxes.size(); dest++) {
+					Mailbox mailbox = mailboxes.get(dest);
+					if (mailbox != null && mailbox.events.head != null) {
+						return mailbox.events.head;
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = advance(next);
+				return last.event;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				DeferredQueue.this.remove(last);
+				last = null;
+			}
+
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		mailboxes.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the mailbox of an entity.
+	 *
+	 * @param dest the id of the destination entity
+	 * @return the mailbox, or <tt>null</tt> if no event has been sent to the entity
+	 */
+	private Mailbox getMailbox(int dest) {
+		if (dest < 0 || dest >= mailboxes.size()) {
+			return null;
+		}
+		return mailboxes.get(dest);
+	}
+
+	/**
+	 * Finds the first node of a mailbox whose event matches a predicate.
+	 *
+	 * @param mailbox the mailbox
+	 * @param p the predicate
+	 * @return the node, or <tt>null</tt> if none matches
+	 */
+	private Node findFirst(Mailbox mailbox, Predicate p) {
+		if (p.getClass() == PredicateAny.class) {
+			return mailbox.events.head;
+		}
+		if (p.getClass() == PredicateType.class) {
+			return findFirst(mailbox.tags, ((PredicateType) p).getTags());
+		}
+		if (p.getClass() == PredicateFrom.class) {
+			return findFirst(mailbox.sources, ((PredicateFrom) p).getSourceIds());
+		}
+		for (Node node = mailbox.events.head; node != null; node = node.next(MAILBOX)) {
+			if (p.match(node.event)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the earliest head of the chains with the given keys.
+	 *
+	 * @param chains the chains of a mailbox
+	 * @param keys the keys
+	 * @return the node, or <tt>null</tt> if these chains are empty
+	 */
+	private Node findFirst(List<Chain> chains, int[] keys) {
+		Node first = null;
+		for (int key : keys) {
+			Chain chain = find(chains, key);
+			if (chain != null && chain.head != null && (first == null || chain.head.before(first))) {
+				first = chain.head;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Counts the nodes of the chains with the given keys.
+	 *
+	 * @param chains the chains of a mailbox
+	 * @param keys the keys, possibly repeated
+	 * @return the number of nodes
+	 */
+	private int count(List<Chain> chains, int[] keys) {
+		int count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (!contains(keys, i, keys[i])) {
+				Chain chain = find(chains, keys[i]);
+				if (chain != null) {
+					count += chain.size;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks whether a key is among the first keys of an array.
+	 *
+	 * @param keys the keys
+	 * @param length the number of keys to check
+	 * @param key the key
+	 * @return true, if the key has been found
+	 */
+	private static boolean contains(int[] keys, int length, int key) {
+		for (int i = 0; i < length; i++) {
+			if (keys[i] == key) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the chain with a given key.
+	 *
+	 * @param chains the chains of a mailbox
+	 * @param key the key
+	 * @return the chain, or <tt>null</tt> if not found
+	 */
+	private static Chain find(List<Chain> chains, int key) {
+		for (int i = 0; i < chains.size(); i++) {
+			Chain chain = chains.get(i);
+			if (chain.key == key) {
+				return chain;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Unlinks a node from its mailbox, tag and source lists.
+	 *
+	 * @param node the node
+	 */
+	private void remove(Node node) {
+		node.mailbox.events.remove(node, MAILBOX);
+		node.tagChain.remove(node, TAG);
+		node.sourceChain.remove(node, SOURCE);
+		size--;
+	}
+
+	/**
+	 * The events waiting for an entity.
+	 */
+	private static final class Mailbox {
+
+		/** All the events, in temporal order. */
+		private final Chain events = new Chain(-1);
+
+		/** The events by tag. There are usually few distinct tags, so a list is enough. */
+		private final List<Chain> tags = new ArrayList<Chain>();
+
+		/** The events by source. */
+		private final List<Chain> sources = new ArrayList<Chain>();
+
+		/**
+		 * Gets the chain with a given key, creating it if needed.
+		 *
+		 * @param chains the tag or source chains
+		 * @param key the key
+		 * @return the chain
+		 */
+		private Chain chain(List<Chain> chains, int key) {
+			Chain chain = find(chains, key);
+			if (chain == null) {
+				chain = new Chain(key);
+				chains.add(chain);
+			}
+			return chain;
+		}
+
+	}
+
+	/**
+	 * A doubly linked list of nodes in temporal order.
+	 */
+	private static final class Chain {
+
+		/** The tag or source of the events of this chain. */
+		private final int key;
+
+		/** The first node. */
+		private Node head;
+
+		/** The last node. */
+		private Node tail;
+
+		/** The number of nodes. */
+		private int size;
+
+		private Chain(int key) {
+			this.key = key;
+		}
+
+		/**
+		 * Inserts a node after all the nodes with the same or an earlier time.
+		 *
+		 * @param node the node
+		 * @param link the links of the node used by this chain
+		 */
+		private void insert(Node node, int link) {
+			Node prev = tail;
+			double time = node.event.eventTime();
+			while (prev != null && prev.event.eventTime() > time) {
+				prev = prev.prev(link);
+			}
+			Node next = prev == null ? head : prev.next(link);
+			node.setLinks(link, prev, next);
+			if (prev == null) {
+				head = node;
+			} else {
+				prev.setNext(link, node);
+			}
+			if (next == null) {
+				tail = node;
+			} else {
+				next.setPrev(link, node);
+			}
+			size++;
+		}
+
+		/**
+		 * Unlinks a node.
+		 *
+		 * @param node the node
+		 * @param link the links of the node used by this chain
+		 */
+		private void remove(Node node, int link) {
+			Node prev = node.prev(link);
+			Node next = node.next(link);
+			if (prev == null) {
+				head = next;
+			} else {
+				prev.setNext(link, next);
+			}
+			if (next == null) {
+				tail = prev;
+			} else {
+				next.setPrev(link, prev);
+			}
+			node.setLinks(link, null, null);
+			size--;
+		}
+
+	}
+
+	/**
+	 * A deferred event, linked in the list of its mailbox, its tag and its source.
+	 */
+	private static final class Node {
+
+		/** The event. */
+		private final SimEvent event;
+
+		/** The arrival order of the event. */
+		private final long arrival;
+
+		/** The mailbox of the event. */
+		private Mailbox mailbox;
+
+		/** The list of the tag of the event. */
+		private Chain tagChain;
+
+		/** The list of the source of the event. */
+		private Chain sourceChain;
+
+		/** The previous and next nodes in the mailbox. */
+		private Node prevEvent, nextEvent;
+
+		/** The previous and next nodes with the same tag. */
+		private Node prevTag, nextTag;
+
+		/** The previous and next nodes with the same source. */
+		private Node prevSource, nextSource;
+
+		private Node(SimEvent event, long arrival) {
+			this.event = event;
+			this.arrival = arrival;
+		}
+
+		private Node prev(int link) {
+			switch (link) {
+				case MAILBOX:
+					return prevEvent;
+				case TAG:
+					return prevTag;
+				default:
+					return prevSource;
+			}
+		}
+
+		private Node next(int link) {
+			switch (link) {
+				case MAILBOX:
+					return nextEvent;
+				case TAG:
+					return nextTag;
+				default:
+					return nextSource;
+			}
+		}
+
+		private void setPrev(int link, Node node) {
+			switch (link) {
+				case MAILBOX:
+					prevEvent = node;
+					break;
+				case TAG:
+					prevTag = node;
+					break;
+				default:
+					prevSource = node;
+					break;
+			}
+		}
+
+		private void setNext(int link, Node node) {
+			switch (link) {
+				case MAILBOX:
+					nextEvent = node;
+					break;
+				case TAG:
+					nextTag = node;
+					break;
+				default:
+					nextSource = node;
+					break;
+			}
+		}
+
+		private void setLinks(int link, Node prev, Node next) {
+			setPrev(link, prev);
+			setNext(link, next);
+		}
+
+		/**
+		 * Checks whether this node precedes another one in the mailbox.
+		 *
+		 * @param other the other node
+		 * @return true, if this node comes first
+		 */
+		private boolean before(Node other) {
+			double time = event.eventTime();
+			double otherTime = other.event.eventTime();
+			return time < otherTime || time == otherTime && arrival < other.arrival;
+		}
+
 	}
 
-}
\ No newline at end of file
+}
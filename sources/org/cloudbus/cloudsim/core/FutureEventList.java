@@ -0,0 +1,106 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The future event list used by {@link CloudSim}. Implementations keep the pending events ordered
+ * by their event time and, for events with the same time, by the serial number assigned when the
+ * event was added, so that events scheduled for the same instant are processed in the order they
+ * were sent. Events added with {@link #addEventFirst(SimEvent)} go before all the events sent for
+ * the same instant.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureQueue
+ * @see CalendarQueue
+ * @see CloudSim#init(int, java.util.Calendar, boolean, FutureEventList)
+ */
+public interface FutureEventList extends Iterable<SimEvent> {
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Add a new event to the head of the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Removes all the events scheduled for the given time from the head of the queue and appends
+	 * them, in order, to the given buffer. Nothing is removed if the first event of the queue is
+	 * not scheduled for that time.
+	 *
+	 * @param time the event time
+	 * @param buffer the list to which the removed events are appended
+	 * @return the number of events removed
+	 */
+	int pollAllAt(double time, List<SimEvent> buffer);
+
+	/**
+	 * Returns an iterator to the queue. The events are returned in the order they would be
+	 * processed.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Clears the queue.
+	 */
+	void clear();
+
+}
@@ -348,10 +348,7 @@ public abstract class SimEntity implements Cloneable {
 		if (!CloudSim.running()) {
 			return null;
 		}
-		if (numEventsWaiting(p) > 0) {
-			return selectEvent(p);
-		}
-		return null;
+		return selectEvent(p);
 	}
 
 	/**
@@ -404,6 +401,8 @@ public abstract class SimEntity implements Cloneable {
 
 		while (ev != null) {
 			processEvent(ev);
+			// the event has been consumed, so it can be reused when the events are recycled
+			CloudSim.releaseEvent(ev);
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -475,12 +474,15 @@ public abstract class SimEntity implements Cloneable {
 	public static final int FINISHED = 3;
 
 	/**
-	 * Sets the state.
+	 * Sets the state. An entity that becomes runnable is run in the next clock tick.
 	 * 
 	 * @param state the new state
 	 */
 	protected void setState(int state) {
 		this.state = state;
+		if (state == RUNNABLE && id >= 0) {
+			CloudSim.activate(id);
+		}
 	}
 
 	/**
@@ -560,6 +562,58 @@ public abstract class SimEntity implements Cloneable {
 		send(entityId, delay, cloudSimTag, null);
 	}
 
+	/**
+	 * Sends an acknowledgement to another entity by <tt>delaying</tt> the simulation time from the
+	 * current time. The acknowledgement is carried by the event itself in primitive form, so the
+	 * receiver reads it with {@link SimEvent#getAcknowledgedId()} and
+	 * {@link SimEvent#getAcknowledgementStatus()}, or from the <tt>int[]</tt> returned by
+	 * {@link SimEvent#getData()} as before.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param id the id of the acknowledged object, e.g. a VM or a cloudlet
+	 * @param status CloudSimTags.TRUE or CloudSimTags.FALSE
+	 * @pre entityID > 0
+	 * @pre delay >= 0.0
+	 * @post $none
+	 */
+	protected void sendAcknowledgement(int entityId, double delay, int cloudSimTag, int id, int status) {
+		if (entityId < 0 || !CloudSim.running()) {
+			return;
+		}
+
+		// if delay is -ve, then it doesn't make sense. So resets to 0.0
+		if (delay < 0) {
+			delay = 0;
+		}
+
+		if (Double.isInfinite(delay)) {
+			throw new IllegalArgumentException("The specified delay is infinite value");
+		}
+
+		int srcId = getId();
+		if (entityId != srcId) {// does not delay self messages
+			delay += getNetworkDelay(srcId, entityId);
+		}
+
+		CloudSim.sendAcknowledgement(srcId, entityId, delay, cloudSimTag, id, status);
+	}
+
+	/**
+	 * Sends an acknowledgement to another entity, <b>without</b> any delay.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param id the id of the acknowledged object, e.g. a VM or a cloudlet
+	 * @param status CloudSimTags.TRUE or CloudSimTags.FALSE
+	 * @see #sendAcknowledgement(int, double, int, int, int)
+	 */
+	protected void sendAcknowledgementNow(int entityId, int cloudSimTag, int id, int status) {
+		sendAcknowledgement(entityId, 0, cloudSimTag, id, status);
+	}
+
 	/**
 	 * Sends an event/message to another entity by <tt>delaying</tt> the simulation time from the
 	 * current time, with a tag representing the event type.
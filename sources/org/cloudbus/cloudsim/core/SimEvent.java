@@ -18,10 +18,10 @@ package org.cloudbus.cloudsim.core;
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	/** internal event type **/
-	private final int etype;
+	private int etype;
 
 	/** time at which event should occur **/
-	private final double time;
+	private double time;
 
 	/** time that the event was removed from the queue for service **/
 	private double endWaitingTime;
@@ -33,10 +33,19 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** the user defined type of the event **/
-	private final int tag;
+	private int tag;
 
 	/** any data the event is carrying **/
-	private final Object data;
+	private Object data;
+
+	/** whether the event is an acknowledgement carried in primitive form **/
+	private boolean acknowledgement;
+
+	/** id of the object acknowledged, when the event is an acknowledgement **/
+	private int acknowledgedId;
+
+	/** status of the acknowledgement, i.e. CloudSimTags.TRUE or CloudSimTags.FALSE **/
+	private int acknowledgementStatus;
 
 	private long serial = -1;
 
@@ -82,6 +91,36 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Re-initialises this event so that it can be reused. Only used by {@link CloudSim} to recycle
+	 * the events once they have been consumed.
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = -1.0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		acknowledgement = false;
+		acknowledgedId = -1;
+		acknowledgementStatus = -1;
+		serial = -1;
+	}
+
+	/**
+	 * Turns this event into an acknowledgement carried in primitive form.
+	 * 
+	 * @param id the id of the acknowledged object, e.g. a VM or a cloudlet
+	 * @param status CloudSimTags.TRUE or CloudSimTags.FALSE
+	 */
+	void setAcknowledgement(int id, int status) {
+		acknowledgement = true;
+		acknowledgedId = id;
+		acknowledgementStatus = status;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
@@ -196,14 +235,73 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	}
 
 	/**
-	 * Get the data passed in this event.
+	 * Get the data passed in this event. For an acknowledgement sent in primitive form, an
+	 * <tt>int[]</tt> with the source id, the acknowledged id and the status is returned, as the
+	 * acknowledgements were sent before. The array is built at the first call and the same one is
+	 * returned afterwards; {@link #getAcknowledgedId()} and {@link #getAcknowledgementStatus()}
+	 * read the acknowledgement without it.
 	 * 
 	 * @return A reference to the data
+	 * @see #isAcknowledgement()
 	 */
 	public Object getData() {
+		if (data == null && acknowledgement) {
+			data = new int[] { entSrc, acknowledgedId, acknowledgementStatus };
+		}
 		return data;
 	}
 
+	/**
+	 * Checks whether this event is an acknowledgement sent in primitive form, i.e. without an
+	 * <tt>int[]</tt> payload.
+	 * 
+	 * @return true, if the event is an acknowledgement
+	 * @see SimEntity#sendAcknowledgement(int, double, int, int, int)
+	 */
+	public boolean isAcknowledgement() {
+		return acknowledgement;
+	}
+
+	/**
+	 * Get the id of the object acknowledged by this event, e.g. a VM or a cloudlet. Events carrying
+	 * a legacy <tt>int[]</tt> acknowledgement are supported as well.
+	 * 
+	 * @return the acknowledged id
+	 */
+	public int getAcknowledgedId() {
+		if (acknowledgement) {
+			return acknowledgedId;
+		}
+		return ((int[]) data)[1];
+	}
+
+	/**
+	 * Get the status of the acknowledgement, i.e. <tt>CloudSimTags.TRUE</tt> or
+	 * <tt>CloudSimTags.FALSE</tt>. Events carrying a legacy <tt>int[]</tt> acknowledgement are
+	 * supported as well.
+	 * 
+	 * @return the status
+	 */
+	public int getAcknowledgementStatus() {
+		if (acknowledgement) {
+			return acknowledgementStatus;
+		}
+		return ((int[]) data)[2];
+	}
+
+	/**
+	 * Get the id of the entity that sent the acknowledgement. Events carrying a legacy
+	 * <tt>int[]</tt> acknowledgement are supported as well.
+	 * 
+	 * @return the id of the acknowledging entity
+	 */
+	public int getAcknowledgingId() {
+		if (acknowledgement) {
+			return entSrc;
+		}
+		return ((int[]) data)[0];
+	}
+
 	/**
 	 * Create an exact copy of this event.
 	 * 
@@ -211,7 +309,11 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 */
 	@Override
 	public Object clone() {
-		return new SimEvent(etype, time, entSrc, entDst, tag, data);
+		SimEvent copy = new SimEvent(etype, time, entSrc, entDst, tag, data);
+		if (acknowledgement) {
+			copy.setAcknowledgement(acknowledgedId, acknowledgementStatus);
+		}
+		return copy;
 	}
 
 	/**
@@ -0,0 +1,219 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A simulation context owns the state of one simulation: the entities, the future and deferred
+ * event queues, the clock and the other kernel variables used by {@link CloudSim}, as well as the
+ * state other modules keep per simulation through a {@link Key}, e.g. the log settings.
+ * <p>
+ * The static methods of {@link CloudSim} work on the context of the calling thread. Each thread
+ * gets its own context the first time it is used, so independent simulations can run concurrently
+ * in one JVM as long as each of them runs in its own thread. A context can also be bound to a
+ * thread explicitly with {@link #setCurrent(SimulationContext)}:
+ *
+ * <pre>
+ * SimulationContext previous = SimulationContext.setCurrent(new SimulationContext());
+ * try {
+ * 	CloudSim.init(1, Calendar.getInstance(), false);
+ * 	// create the entities and run the simulation
+ * } finally {
+ * 	SimulationContext.setCurrent(previous);
+ * }
+ * </pre>
+ *
+ * A context must only be used by one thread at a time, and the entities, events and other objects
+ * of a simulation must not be shared with the simulations of other contexts.
+ *
+ * @since CloudSim Toolkit 3.0
+ */
+public final class SimulationContext {
+
+	/** The context of each thread. */
+	private static final ThreadLocal<SimulationContext> CURRENT = new ThreadLocal<SimulationContext>() {
+
+		@Override
+		protected SimulationContext initialValue() {
+			return new SimulationContext();
+		}
+	};
+
+	/** The number of keys created so far, used to give each key its own slot. */
+	private static final AtomicInteger keyCount = new AtomicInteger();
+
+	/** The values of the keys, indexed by the key slots. */
+	private Object[] values = new Object[8];
+
+	// The kernel state, used by CloudSim
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. */
+	double minTimeBetweenEvents = 0.1;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue. */
+	FutureEventList future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The ids of the entities to run in the next clock tick. */
+	BitSet readyEntities;
+
+	/** The events processed in the current clock tick. The buffer is reused across ticks. */
+	final List<SimEvent> currentEvents = new ArrayList<SimEvent>();
+
+	/** The consumed events available for reuse. */
+	final List<SimEvent> eventPool = new ArrayList<SimEvent>();
+
+	/** Whether the consumed events are recycled. */
+	boolean eventPoolingEnabled = false;
+
+	/** The simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The wait predicates. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	boolean paused = false;
+
+	/** The pause at. */
+	long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate = false;
+
+	/**
+	 * Creates a new, empty simulation context. The context is not used until it is bound to a
+	 * thread with {@link #setCurrent(SimulationContext)}.
+	 */
+	public SimulationContext() {
+	}
+
+	/**
+	 * Gets the simulation context of the calling thread. A new context is created the first time
+	 * a thread asks for it.
+	 *
+	 * @return the context of the calling thread
+	 */
+	public static SimulationContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Binds a simulation context to the calling thread. The static methods of {@link CloudSim},
+	 * and of the classes keeping their state through a {@link Key}, then work on this context.
+	 *
+	 * @param context the context, or <tt>null</tt> to give the thread a new context when it next
+	 *            needs one
+	 * @return the context previously bound to the calling thread
+	 */
+	public static SimulationContext setCurrent(SimulationContext context) {
+		SimulationContext previous = CURRENT.get();
+		if (context == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(context);
+		}
+		return previous;
+	}
+
+	/**
+	 * Gets the value of a key in this context, creating it with {@link Key#initialValue()} the
+	 * first time it is asked for.
+	 *
+	 * @param key the key
+	 * @return the value of the key in this context
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(Key<T> key) {
+		int index = key.index;
+		if (index >= values.length) {
+			values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+		}
+		Object value = values[index];
+		if (value == null) {
+			value = key.initialValue();
+			values[index] = value;
+		}
+		return (T) value;
+	}
+
+	/**
+	 * Sets the value of a key in this context.
+	 *
+	 * @param key the key
+	 * @param value the value, or <tt>null</tt> to have it created again when it is next asked for
+	 */
+	public <T> void set(Key<T> key, T value) {
+		int index = key.index;
+		if (index >= values.length) {
+			values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+		}
+		values[index] = value;
+	}
+
+	/**
+	 * A key to some state kept per simulation context. Classes whose state used to be static keep
+	 * it in an object of their own, obtained from the current context with the key, so that each
+	 * simulation context has its own copy. Keys are expected to be created once, as constants.
+	 *
+	 * @param <T> the type of the state
+	 */
+	public static abstract class Key<T> {
+
+		/** The slot of this key in the contexts. */
+		private final int index = keyCount.getAndIncrement();
+
+		/**
+		 * Creates the value of this key for a context that does not have one yet.
+		 *
+		 * @return the initial value, not <tt>null</tt>
+		 */
+		protected abstract T initialValue();
+
+	}
+
+}
@@ -59,4 +59,14 @@ public class PredicateFrom extends Predicate {
 		return false;
 	}
 
+	/**
+	 * Gets the ids of the source entities selected by this predicate. The returned array must not
+	 * be modified.
+	 * 
+	 * @return the ids of the source entities
+	 */
+	public int[] getSourceIds() {
+		return ids;
+	}
+
 }
@@ -58,4 +58,13 @@ public class PredicateType extends Predicate {
 		return false;
 	}
 
+	/**
+	 * Gets the tags selected by this predicate. The returned array must not be modified.
+	 * 
+	 * @return the tags
+	 */
+	public int[] getTags() {
+		return tags;
+	}
+
 }
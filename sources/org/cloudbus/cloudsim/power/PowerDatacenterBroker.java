@@ -46,12 +46,11 @@ public class PowerDatacenterBroker extends DatacenterBroker {
 	 */
 	@Override
 	protected void processVmCreate(SimEvent ev) {
-		int[] data = (int[]) ev.getData();
-		int result = data[2];
+		int result = ev.getAcknowledgementStatus();
 
 		if (result != CloudSimTags.TRUE) {
-			int datacenterId = data[0];
-			int vmId = data[1];
+			int datacenterId = ev.getAcknowledgingId();
+			int vmId = ev.getAcknowledgedId();
 			System.out.println(CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
 					+ " failed in Datacenter #" + datacenterId);
 			System.exit(0);
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * AnalyticCloudletScheduler is a space-shared cloudlet scheduler for vms with
+ * a constant mips. Since a cloudlet runs alone on its pes, its finish time is
+ * known as soon as it starts: it is computed once, and updating the vm only
+ * finishes the cloudlets whose finish time has come, instead of advancing
+ * every cloudlet by the time passed on each datacenter event. A cloudlet of
+ * the waiting list starts at the exact time a running cloudlet frees its pes.
+ *
+ * WorkflowDatacenter schedules one event at the finish time of each cloudlet
+ * running on such a vm, without the minimal interval it keeps between the
+ * updates of the other vms.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class AnalyticCloudletScheduler extends CloudletSchedulerSpaceShared {
+
+    /**
+     * How close to its finish time a cloudlet is finished, since the time of
+     * an event may be off by a rounding error
+     */
+    static final double TIME_TOLERANCE = 1e-9;
+    /**
+     * The time the progress of the running cloudlets was last recorded
+     */
+    private double progressTime;
+
+    public AnalyticCloudletScheduler() {
+        super();
+        // the finished cloudlets are taken from the head
+        setCloudletFinishedList(new LinkedList<ResCloudlet>());
+    }
+
+    /**
+     * Finishes the cloudlets whose finish time has come, and starts the
+     * waiting cloudlets as pes become free
+     *
+     * @param currentTime current simulation time
+     * @param mipsShare array with MIPS share of each processor available to
+     * the scheduler
+     * @return the finish time of the next cloudlet, Double.MAX_VALUE if only
+     * waiting cloudlets are left, or 0 if there is no cloudlet
+     */
+    @Override
+    public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+        setCurrentMipsShare(mipsShare);
+        double capacity = getCapacity();
+        while (true) {
+            ResCloudlet next = getNextRunning();
+            if (next == null || next.getClouddletFinishTime() > currentTime + TIME_TOLERANCE) {
+                break;
+            }
+            double finishTime = next.getClouddletFinishTime();
+            getCloudletExecList().remove(next);
+            cloudletFinish(next);
+            startWaitingCloudlets(finishTime, capacity);
+        }
+        setPreviousTime(currentTime);
+
+        if (getCloudletExecList().isEmpty() && getCloudletWaitingList().isEmpty()) {
+            return 0.0;
+        }
+        ResCloudlet next = getNextRunning();
+        if (next == null) {
+            return Double.MAX_VALUE;
+        }
+        return next.getClouddletFinishTime();
+    }
+
+    /**
+     * Receives a cloudlet. The time to transfer its files is added to its
+     * length, as in CloudletSchedulerSpaceShared.
+     *
+     * @param cloudlet the submitted cloudlet
+     * @param fileTransferTime time required to move the required files from
+     * the SAN to the VM
+     * @return the time until the cloudlet finishes, or 0 if it is in the
+     * waiting queue
+     */
+    @Override
+    public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+        double time = super.cloudletSubmit(cloudlet, fileTransferTime);
+        if (time == 0.0) {
+            return 0.0;
+        }
+        List<ResCloudlet> execList = getCloudletExecList();
+        ResCloudlet rcl = execList.get(execList.size() - 1);
+        start(rcl, CloudSim.clock(), getCapacity());
+        return rcl.getClouddletFinishTime() - CloudSim.clock();
+    }
+
+    @Override
+    public Cloudlet cloudletCancel(int cloudletId) {
+        recordProgress(CloudSim.clock());
+        Cloudlet cloudlet = super.cloudletCancel(cloudletId);
+        startWaitingCloudlets(CloudSim.clock(), getCapacity());
+        return cloudlet;
+    }
+
+    @Override
+    public boolean cloudletPause(int cloudletId) {
+        recordProgress(CloudSim.clock());
+        boolean paused = super.cloudletPause(cloudletId);
+        startWaitingCloudlets(CloudSim.clock(), getCapacity());
+        return paused;
+    }
+
+    @Override
+    public double cloudletResume(int cloudletId) {
+        List<ResCloudlet> execList = getCloudletExecList();
+        int size = execList.size();
+        double time = super.cloudletResume(cloudletId);
+        if (execList.size() > size) {
+            ResCloudlet rcl = execList.get(execList.size() - 1);
+            start(rcl, CloudSim.clock(), getCapacity());
+            return rcl.getClouddletFinishTime();
+        }
+        return time;
+    }
+
+    @Override
+    public Cloudlet migrateCloudlet() {
+        recordProgress(CloudSim.clock());
+        Cloudlet cloudlet = super.migrateCloudlet();
+        startWaitingCloudlets(CloudSim.clock(), getCapacity());
+        return cloudlet;
+    }
+
+    /**
+     * Gets the mips of a pe and updates the number of pes
+     *
+     * @return the average mips of the pes
+     */
+    private double getCapacity() {
+        double capacity = 0.0;
+        int cpus = 0;
+        for (Double mips : getCurrentMipsShare()) {
+            capacity += mips;
+            if (mips > 0) {
+                cpus++;
+            }
+        }
+        currentCpus = cpus;
+        return capacity / cpus;
+    }
+
+    /**
+     * Gets the running cloudlet that finishes first
+     *
+     * @return the cloudlet, or null if none is running
+     */
+    private ResCloudlet getNextRunning() {
+        ResCloudlet next = null;
+        for (ResCloudlet rcl : getCloudletExecList()) {
+            if (next == null || rcl.getClouddletFinishTime() < next.getClouddletFinishTime()) {
+                next = rcl;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Sets the finish time of a cloudlet that starts running
+     *
+     * @param rcl the cloudlet
+     * @param time the time it starts
+     * @param capacity the mips of a pe
+     */
+    private void start(ResCloudlet rcl, double time, double capacity) {
+        double remaining = rcl.getRemainingCloudletLength();
+        rcl.setFinishTime(time + remaining / (capacity * rcl.getNumberOfPes()));
+    }
+
+    /**
+     * Starts the waiting cloudlets that fit on the free pes, in the order of
+     * the waiting list
+     *
+     * @param time the time the pes became free
+     * @param capacity the mips of a pe
+     */
+    private void startWaitingCloudlets(double time, double capacity) {
+        List<ResCloudlet> started = new ArrayList<>();
+        for (ResCloudlet rcl : this.<ResCloudlet>getCloudletWaitingList()) {
+            if (currentCpus - usedPes >= rcl.getNumberOfPes()) {
+                rcl.setCloudletStatus(Cloudlet.INEXEC);
+                for (int k = 0; k < rcl.getNumberOfPes(); k++) {
+                    rcl.setMachineAndPeId(0, k);
+                }
+                getCloudletExecList().add(rcl);
+                usedPes += rcl.getNumberOfPes();
+                start(rcl, time, capacity);
+                started.add(rcl);
+            }
+        }
+        getCloudletWaitingList().removeAll(started);
+    }
+
+    /**
+     * Records how much of the running cloudlets is done, before one of them
+     * is cancelled, paused or migrated
+     *
+     * @param time the current time
+     */
+    private void recordProgress(double time) {
+        if (getCurrentMipsShare() == null) {
+            return;
+        }
+        double capacity = getCapacity();
+        for (ResCloudlet rcl : this.<ResCloudlet>getCloudletExecList()) {
+            double from = Math.max(rcl.getExecStartTime(), progressTime);
+            rcl.updateCloudletFinishedSoFar((long) (capacity * (time - from) * rcl.getNumberOfPes() * Consts.MILLION));
+        }
+        progressTime = time;
+    }
+}
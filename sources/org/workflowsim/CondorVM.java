@@ -33,6 +33,10 @@ public class CondorVM extends Vm {
      * or VM_STATUS_READY (not used in workflowsim) or VM_STATUS_BUSY
      */
     private int state;
+    /**
+     * The registry notified when the state changes, may be null
+     */
+    private IdleVmRegistry idleVmRegistry;
 
     /**
      * the cost of using memory in this resource
@@ -183,6 +187,18 @@ public class CondorVM extends Vm {
      */
     public final void setState(int tag) {
         this.state = tag;
+        if (this.idleVmRegistry != null) {
+            this.idleVmRegistry.update(this);
+        }
+    }
+
+    /**
+     * Sets the registry notified when the state changes
+     *
+     * @param registry the registry
+     */
+    final void setIdleVmRegistry(IdleVmRegistry registry) {
+        this.idleVmRegistry = registry;
     }
 
     /**
@@ -15,7 +15,10 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.workflowsim.utils.Parameters.FileType;
 
 /**
@@ -72,6 +75,9 @@ public class FileItem {
      * times, thus if a file is an output file it means it is generated within
      * this job and then used by another task within the same job (or other jobs
      * maybe) This is useful when we perform horizontal clustering     
+     * 
+     * It scans the whole list, use getRealInputFiles() to check every file of
+     * a list.
      * @param list
      * @return 
      */
@@ -91,4 +97,28 @@ public class FileItem {
         }
         return false;
     }
+
+    /**
+     * Gets the files of a list that are real input files, as
+     * isRealInputFile() tells, in the order of the list. The names of the
+     * output files are collected first, so it takes linear time.
+     *
+     * @param list the files
+     * @return the real input files
+     */
+    public static List<FileItem> getRealInputFiles(List<FileItem> list) {
+        Set<String> outputs = new HashSet<>();
+        for (FileItem file : list) {
+            if (file.getType() == FileType.OUTPUT) {
+                outputs.add(file.getName());
+            }
+        }
+        List<FileItem> inputs = new ArrayList<>();
+        for (FileItem file : list) {
+            if (file.getType() == FileType.INPUT && !outputs.contains(file.getName())) {
+                inputs.add(file);
+            }
+        }
+        return inputs;
+    }
 }
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * IdleVmRegistry keeps the idle vms of a list up to date as their state
+ * changes, so a scheduling algorithm finds an idle vm without scanning every
+ * vm. The vms are registered with the registry and notify it from
+ * CondorVM.setState(); a vm belongs to at most one registry, the last one
+ * built with the constructor. A polling registry is not registered: it reads
+ * the states of its vms again before each query instead, so it can be used
+ * alongside the registry the vms belong to.
+ *
+ * The idle vms are kept by id, and by decreasing requested mips and then id.
+ * The requested mips of a vm is read when it becomes idle.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class IdleVmRegistry {
+
+    private static final Comparator<CondorVM> BY_ID = new Comparator<CondorVM>() {
+        @Override
+        public int compare(CondorVM v1, CondorVM v2) {
+            return Integer.compare(v1.getId(), v2.getId());
+        }
+    };
+    /**
+     * The requested mips of each idle vm when it became idle
+     */
+    private final Map<CondorVM, Double> idleMips;
+    private final TreeSet<CondorVM> byId;
+    private final TreeSet<CondorVM> byMips;
+    /**
+     * The vms of a polling registry, or null if the vms notify this registry
+     */
+    private final List<CondorVM> polledVms;
+
+    /**
+     * Registers the vms of a list
+     *
+     * @param vmList the vms, all CondorVMs
+     */
+    public IdleVmRegistry(List<?> vmList) {
+        this(vmList, true);
+    }
+
+    /**
+     * Creates a registry of the vms of a list that is not registered with
+     * them. Each query costs a pass over the vms.
+     *
+     * @param vmList the vms, all CondorVMs
+     * @return the registry
+     */
+    public static IdleVmRegistry polling(List<?> vmList) {
+        return new IdleVmRegistry(vmList, false);
+    }
+
+    private IdleVmRegistry(List<?> vmList, boolean register) {
+        this.idleMips = new HashMap<>();
+        this.byId = new TreeSet<>(BY_ID);
+        this.byMips = new TreeSet<>(new Comparator<CondorVM>() {
+            @Override
+            public int compare(CondorVM v1, CondorVM v2) {
+                int result = Double.compare(idleMips.get(v2), idleMips.get(v1));
+                if (result != 0) {
+                    return result;
+                }
+                return BY_ID.compare(v1, v2);
+            }
+        });
+        this.polledVms = register ? null : new ArrayList<CondorVM>();
+        for (Object object : vmList) {
+            CondorVM vm = (CondorVM) object;
+            if (register) {
+                vm.setIdleVmRegistry(this);
+            } else {
+                polledVms.add(vm);
+            }
+            update(vm);
+        }
+    }
+
+    /**
+     * Reads the states of the vms of a polling registry again
+     */
+    private void poll() {
+        if (polledVms != null) {
+            for (CondorVM vm : polledVms) {
+                update(vm);
+            }
+        }
+    }
+
+    /**
+     * Adds or removes a vm after its state has changed
+     *
+     * @param vm the vm
+     */
+    void update(CondorVM vm) {
+        boolean idle = idleMips.containsKey(vm);
+        if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+            if (!idle) {
+                idleMips.put(vm, vm.getCurrentRequestedTotalMips());
+                byId.add(vm);
+                byMips.add(vm);
+            }
+        } else if (idle) {
+            byId.remove(vm);
+            byMips.remove(vm);
+            idleMips.remove(vm);
+        }
+    }
+
+    /**
+     * Checks whether no vm is idle
+     *
+     * @return true if no vm is idle
+     */
+    public boolean isEmpty() {
+        poll();
+        return idleMips.isEmpty();
+    }
+
+    /**
+     * Gets the number of idle vms
+     *
+     * @return the number of idle vms
+     */
+    public int size() {
+        poll();
+        return idleMips.size();
+    }
+
+    /**
+     * Gets the idle vm with the lowest id
+     *
+     * @return the vm, or null if no vm is idle
+     */
+    public CondorVM getFirst() {
+        poll();
+        if (byId.isEmpty()) {
+            return null;
+        }
+        return byId.first();
+    }
+
+    /**
+     * Gets the idle vm with the most requested mips, and the lowest id among
+     * those
+     *
+     * @return the vm, or null if no vm is idle
+     */
+    public CondorVM getFastest() {
+        poll();
+        if (byMips.isEmpty()) {
+            return null;
+        }
+        return byMips.first();
+    }
+
+    /**
+     * Gets the idle vms by id
+     *
+     * @return a copy of the idle vms
+     */
+    public List<CondorVM> getVms() {
+        poll();
+        return new ArrayList<>(byId);
+    }
+}
@@ -16,6 +16,7 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Consts;
@@ -34,6 +35,12 @@ import org.cloudbus.cloudsim.UtilizationModelFull;
  */
 public class Task extends Cloudlet {
 
+    /**
+     * The utilization model of every task. UtilizationModelFull has no state,
+     * so the tasks share one instead of holding three each.
+     */
+    private static final UtilizationModelFull UTILIZATION_MODEL = new UtilizationModelFull();
+
     /*
      * The list of parent tasks. 
      */
@@ -46,6 +53,10 @@ public class Task extends Cloudlet {
      * The list of all files (input data and ouput data)
      */
     private List<FileItem> fileList;
+    /*
+     * The real input files of fileList, computed when first needed
+     */
+    private List<FileItem> realInputFileList;
     /*
      * The priority used for research. Not used in current version. 
      */
@@ -93,7 +104,7 @@ public class Task extends Cloudlet {
          * and utilizationModelBw are just set to be the default mode. You can
          * change it for your own purpose.
          */
-        super(taskId, taskLength, 1, 0, 0, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        super(taskId, taskLength, 1, 0, 0, UTILIZATION_MODEL, UTILIZATION_MODEL, UTILIZATION_MODEL);
 
         this.childList = new ArrayList<>();
         this.parentList = new ArrayList<>();
@@ -231,7 +242,8 @@ public class Task extends Cloudlet {
     }
 
     /**
-     * Gets the list of the files
+     * Gets the list of the files. Use addFile() or setFileList() to change
+     * it, so that the real input files are computed again.
      *
      * @return the list of files
      * @pre $none
@@ -241,6 +253,20 @@ public class Task extends Cloudlet {
         return this.fileList;
     }
 
+    /**
+     * Gets the input files that are not produced by this task, which are the
+     * files to stage in. The list is computed once and kept until the file
+     * list changes.
+     *
+     * @return the real input files
+     */
+    public List<FileItem> getRealInputFileList() {
+        if (this.realInputFileList == null) {
+            this.realInputFileList = Collections.unmodifiableList(FileItem.getRealInputFiles(this.fileList));
+        }
+        return this.realInputFileList;
+    }
+
     /**
      * Adds a file to existing file list
      *
@@ -248,6 +274,7 @@ public class Task extends Cloudlet {
      */
     public void addFile(FileItem file) {
         this.fileList.add(file);
+        this.realInputFileList = null;
     }
 
     /**
@@ -257,6 +284,7 @@ public class Task extends Cloudlet {
      */
     public void setFileList(List<FileItem> list) {
         this.fileList = list;
+        this.realInputFileList = null;
     }
 
     /**
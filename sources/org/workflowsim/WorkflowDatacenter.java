@@ -15,8 +15,16 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Consts;
@@ -39,12 +47,54 @@ import org.workflowsim.utils.Parameters.FileType;
  * WorkflowDatacenter extends Datacenter so as we can use CondorVM and other
  * components
  *
+ * The vms with an AnalyticCloudletScheduler are updated lazily: their
+ * cloudlets finish at exact times, so the datacenter keeps the next finish
+ * time of each of them in a heap and only advances those whose finish time
+ * has arrived. The other vms round their progress at each update, so they
+ * are still all advanced on every update, as in Datacenter. Only the vms
+ * advanced are then checked for finished cloudlets, in the order of the
+ * hosts.
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
 public class WorkflowDatacenter extends Datacenter {
 
+    /**
+     * The next finish time of a vm, as returned by Vm.updateVmProcessing()
+     */
+    private static final class FinishTime implements Comparable<FinishTime> {
+
+        final double time;
+        final Vm vm;
+
+        FinishTime(double time, Vm vm) {
+            this.time = time;
+            this.vm = vm;
+        }
+
+        @Override
+        public int compareTo(FinishTime other) {
+            return Double.compare(time, other.time);
+        }
+    }
+    /**
+     * The next finish times of the busy vms with an AnalyticCloudletScheduler.
+     * An entry is stale once it is no longer the one of its vm in
+     * nextFinishTimes.
+     */
+    private final PriorityQueue<FinishTime> exactFinishTimes = new PriorityQueue<>();
+    private final Map<Vm, FinishTime> nextFinishTimes = new HashMap<>();
+    /**
+     * The vms advanced since the last completion check
+     */
+    private final Set<Vm> updatedVms = new LinkedHashSet<>();
+    /**
+     * The index of each host in the host list
+     */
+    private Map<Host, Integer> hostIndexes;
+
     public WorkflowDatacenter(String name,
             DatacenterCharacteristics characteristics,
             VmAllocationPolicy vmAllocationPolicy,
@@ -74,8 +124,8 @@ public class WorkflowDatacenter extends Datacenter {
 
             if (job.isFinished()) {
                 String name = CloudSim.getEntityName(job.getUserId());
-                Log.printLine(getName() + ": Warning - Cloudlet #" + job.getCloudletId() + " owned by " + name
-                        + " is already completed/finished.");
+                Log.printConcatLine(getName(), ": Warning - Cloudlet #", job.getCloudletId(),
+                        " owned by ", name, " is already completed/finished.");
                 Log.printLine("Therefore, it is not being executed again");
                 Log.printLine();
 
@@ -85,14 +135,9 @@ public class WorkflowDatacenter extends Datacenter {
                 // Hence, this might cause CloudSim to be hanged since waiting
                 // for this Cloudlet back.
                 if (ack) {
-                    int[] data = new int[3];
-                    data[0] = getId();
-                    data[1] = job.getCloudletId();
-                    data[2] = CloudSimTags.FALSE;
-
                     // unique tag = operation tag
-                    int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-                    sendNow(job.getUserId(), tag, data);
+                    sendAcknowledgementNow(job.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK,
+                            job.getCloudletId(), CloudSimTags.FALSE);
                 }
 
                 sendNow(job.getUserId(), CloudSimTags.CLOUDLET_RETURN, job);
@@ -133,25 +178,32 @@ public class WorkflowDatacenter extends Datacenter {
                 fileTransferTime = processDataStageInForComputeJob(job.getFileList(), job);
             }
 
+            catchUpVm(vm);
             CloudletScheduler scheduler = vm.getCloudletScheduler();
             double estimatedFinishTime = scheduler.cloudletSubmit(job, fileTransferTime);
+            boolean analytic = isAnalytic(vm);
+            if (analytic) {
+                advanceVm(vm, CloudSim.clock());
+            }
             updateTaskExecTime(job, vm);
+            if (Log.isTracing()) {
+                Log.trace("submit", "job", job.getCloudletId(), "vm", vmId, "datacenter", getId(),
+                        "estimatedFinishTime", estimatedFinishTime);
+            }
 
             // if this cloudlet is in the exec queue
             if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
-                send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+                // advanceVm() has scheduled the finish event of an analytic vm
+                if (!analytic) {
+                    send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+                }
             } else {
                 Log.printLine("Warning: You schedule cloudlet to a busy VM");
             }
 
             if (ack) {
-                int[] data = new int[3];
-                data[0] = getId();
-                data[1] = job.getCloudletId();
-                data[2] = CloudSimTags.TRUE;
-
-                int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-                sendNow(job.getUserId(), tag, data);
+                sendAcknowledgementNow(job.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK,
+                        job.getCloudletId(), CloudSimTags.TRUE);
             }
         } catch (ClassCastException c) {
             Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
@@ -227,79 +279,75 @@ public class WorkflowDatacenter extends Datacenter {
      */
     protected double processDataStageInForComputeJob(List<FileItem> requiredFiles, Job job) throws Exception {
         double time = 0.0;
-        for (FileItem file : requiredFiles) {
-            //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
-                double maxBwth = 0.0;
-                List siteList = ReplicaCatalog.getStorageList(file.getName());
-                if (siteList.isEmpty()) {
-                    throw new Exception(file.getName() + " does not exist");
-                }
-                switch (ReplicaCatalog.getFileSystem()) {
-                    case SHARED:
-                        //stage-in job
-                        /**
-                         * Picks up the site that is closest
-                         */
-                        double maxRate = Double.MIN_VALUE;
-                        for (Storage storage : getStorageList()) {
-                            double rate = storage.getMaxTransferRate();
-                            if (rate > maxRate) {
-                                maxRate = rate;
-                            }
+        //The input file is not an output File 
+        List<FileItem> inputFiles = requiredFiles == job.getFileList()
+                ? job.getRealInputFileList() : FileItem.getRealInputFiles(requiredFiles);
+        for (FileItem file : inputFiles) {
+            double maxBwth = 0.0;
+            List siteList = ReplicaCatalog.getStorageList(file.getName());
+            if (siteList.isEmpty()) {
+                throw new Exception(file.getName() + " does not exist");
+            }
+            switch (ReplicaCatalog.getFileSystem()) {
+                case SHARED:
+                    //stage-in job
+                    /**
+                     * Picks up the site that is closest
+                     */
+                    double maxRate = Double.MIN_VALUE;
+                    for (Storage storage : getStorageList()) {
+                        double rate = storage.getMaxTransferRate();
+                        if (rate > maxRate) {
+                            maxRate = rate;
                         }
-                        //Storage storage = getStorageList().get(0);
-                        time += file.getSize() / (double) Consts.MILLION / maxRate;
-                        break;
-                    case LOCAL:
-                        int vmId = job.getVmId();
-                        int userId = job.getUserId();
-                        Host host = getVmAllocationPolicy().getHost(vmId, userId);
-                        Vm vm = host.getVm(vmId, userId);
-
-                        boolean requiredFileStagein = true;
-                        for (Iterator it = siteList.iterator(); it.hasNext();) {
-                            //site is where one replica of this data is located at
-                            String site = (String) it.next();
-                            if (site.equals(this.getName())) {
-                                continue;
-                            }
-                            /**
-                             * This file is already in the local vm and thus it
-                             * is no need to transfer
-                             */
-                            if (site.equals(Integer.toString(vmId))) {
-                                requiredFileStagein = false;
-                                break;
-                            }
-                            double bwth;
-                            if (site.equals(Parameters.SOURCE)) {
-                                //transfers from the source to the VM is limited to the VM bw only
-                                bwth = vm.getBw();
-                                //bwth = dcStorage.getBaseBandwidth();
-                            } else {
-                                //transfers between two VMs is limited to both VMs
-                                bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
-                                //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
-                            }
-                            if (bwth > maxBwth) {
-                                maxBwth = bwth;
-                            }
+                    }
+                    //Storage storage = getStorageList().get(0);
+                    time += file.getSize() / (double) Consts.MILLION / maxRate;
+                    break;
+                case LOCAL:
+                    int vmId = job.getVmId();
+                    int userId = job.getUserId();
+                    Host host = getVmAllocationPolicy().getHost(vmId, userId);
+                    Vm vm = host.getVm(vmId, userId);
+
+                    /**
+                     * If this file is already in the local vm there is no
+                     * need to transfer it
+                     */
+                    boolean requiredFileStagein = !ReplicaCatalog.containsFileOnVm(file.getName(), vmId);
+                    for (Iterator it = siteList.iterator(); requiredFileStagein && it.hasNext();) {
+                        //site is where one replica of this data is located at
+                        String site = (String) it.next();
+                        if (site.equals(this.getName())) {
+                            continue;
+                        }
+                        double bwth;
+                        if (site.equals(Parameters.SOURCE)) {
+                            //transfers from the source to the VM is limited to the VM bw only
+                            bwth = vm.getBw();
+                            //bwth = dcStorage.getBaseBandwidth();
+                        } else {
+                            //transfers between two VMs is limited to both VMs
+                            bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
+                            //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
                         }
-                        if (requiredFileStagein && maxBwth > 0.0) {
-                            time += file.getSize() / (double) Consts.MILLION / maxBwth;
+                        if (bwth > maxBwth) {
+                            maxBwth = bwth;
                         }
+                    }
+                    if (requiredFileStagein && maxBwth > 0.0) {
+                        time += file.getSize() / (double) Consts.MILLION / maxBwth;
+                    }
 
-                        /**
-                         * For the case when storage is too small it is not
-                         * handled here
-                         */
-                        //We should add but since CondorVm has a small capability it often fails
-                        //We currently don't use this storage to do anything meaningful. It is left for future. 
-                        //condorVm.addLocalFile(file);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
-                        break;
-                }
+                    /**
+                     * For the case when storage is too small it is not
+                     * handled here
+                     */
+                    //We should add but since CondorVm has a small capability it often fails
+                    //We currently don't use this storage to do anything meaningful. It is left for future. 
+                    //condorVm.addLocalFile(file);
+                    ReplicaCatalog.addFileToVm(file.getName(), vmId);
+                    break;
             }
         }
         return time;
@@ -316,11 +364,19 @@ public class WorkflowDatacenter extends Datacenter {
             double smallerTime = Double.MAX_VALUE;
             // for each host...
             for (Host host : list) {
-                // inform VMs to update processing
-                double time = host.updateVmsProcessing(CloudSim.clock());
-                // what time do we expect that the next cloudlet will finish?
-                if (time < smallerTime) {
-                    smallerTime = time;
+                for (Vm vm : host.getVmList()) {
+                    // the analytic vms are advanced at their finish times
+                    if (isAnalytic(vm)) {
+                        continue;
+                    }
+                    // inform VMs to update processing
+                    double time = vm.updateVmProcessing(CloudSim.clock(),
+                            host.getVmScheduler().getAllocatedMipsForVm(vm));
+                    updatedVms.add(vm);
+                    // what time do we expect that the next cloudlet will finish?
+                    if (time > 0.0 && time < smallerTime) {
+                        smallerTime = time;
+                    }
                 }
             }
             // gurantees a minimal interval before scheduling the event
@@ -332,6 +388,19 @@ public class WorkflowDatacenter extends Datacenter {
             }
             setLastProcessTime(CloudSim.clock());
         }
+        // an analytic vm has an event at each of its finish times, which
+        // must not be skipped even right after another update
+        List<Vm> dueVms = new ArrayList<>();
+        double due = CloudSim.clock() + AnalyticCloudletScheduler.TIME_TOLERANCE;
+        FinishTime next = peekFinishTime();
+        while (next != null && next.time <= due) {
+            exactFinishTimes.poll();
+            dueVms.add(next.vm);
+            next = peekFinishTime();
+        }
+        for (Vm vm : dueVms) {
+            advanceVm(vm, CloudSim.clock());
+        }
     }
 
     /**
@@ -343,19 +412,147 @@ public class WorkflowDatacenter extends Datacenter {
      */
     @Override
     protected void checkCloudletCompletion() {
-        List<? extends Host> list = getVmAllocationPolicy().getHostList();
-        for (Host host : list) {
-            for (Vm vm : host.getVmList()) {
-                while (vm.getCloudletScheduler().isFinishedCloudlets()) {
-                    Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
-                    if (cl != null) {
-                        sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
-                        register(cl);
+        if (updatedVms.isEmpty()) {
+            return;
+        }
+        List<Vm> list = new ArrayList<>(updatedVms.size());
+        for (Vm vm : updatedVms) {
+            // a destroyed vm has no host anymore
+            if (vm.getHost() != null) {
+                list.add(vm);
+            }
+        }
+        updatedVms.clear();
+        // the cloudlets are returned in the order of the hosts and of their vms
+        Collections.sort(list, new Comparator<Vm>() {
+            @Override
+            public int compare(Vm v1, Vm v2) {
+                int result = Integer.compare(getHostIndex(v1.getHost()), getHostIndex(v2.getHost()));
+                if (result != 0) {
+                    return result;
+                }
+                return Integer.compare(v1.getHost().getVmList().indexOf(v1),
+                        v2.getHost().getVmList().indexOf(v2));
+            }
+        });
+        for (Vm vm : list) {
+            while (vm.getCloudletScheduler().isFinishedCloudlets()) {
+                Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
+                if (cl != null) {
+                    if (Log.isTracing()) {
+                        Log.trace("finish", "job", cl.getCloudletId(), "vm", cl.getVmId(),
+                                "status", cl.getCloudletStatusString(),
+                                "execStartTime", cl.getExecStartTime());
                     }
+                    sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+                    register(cl);
                 }
             }
         }
     }
+
+    /**
+     * Cancels, pauses or resumes a cloudlet. These change a vm outside of
+     * processCloudletSubmit(), so every analytic vm is brought up to date
+     * before and advanced again afterwards, and every vm is checked again.
+     *
+     * @param ev a SimEvent object
+     * @param type event type
+     */
+    @Override
+    protected void processCloudlet(SimEvent ev, int type) {
+        for (Vm vm : getVmList()) {
+            catchUpVm(vm);
+        }
+        super.processCloudlet(ev, type);
+        for (Vm vm : getVmList()) {
+            if (isAnalytic(vm)) {
+                advanceVm(vm, CloudSim.clock());
+            }
+        }
+        updatedVms.addAll(getVmList());
+    }
+
+    /**
+     * Checks whether a vm computes the finish times of its cloudlets when
+     * they start, so it needs no periodic update
+     *
+     * @param vm the vm
+     * @return true if its cloudlet scheduler is an AnalyticCloudletScheduler
+     */
+    private static boolean isAnalytic(Vm vm) {
+        return vm.getCloudletScheduler() instanceof AnalyticCloudletScheduler;
+    }
+
+    /**
+     * Updates the processing of an analytic vm and its next finish time
+     *
+     * @param vm the vm
+     * @param time the current time
+     */
+    private void advanceVm(Vm vm, double time) {
+        // the entry left in the heap becomes stale
+        FinishTime previous = nextFinishTimes.remove(vm);
+        Host host = vm.getHost();
+        if (host == null) {
+            return;
+        }
+        double next = vm.updateVmProcessing(time, host.getVmScheduler().getAllocatedMipsForVm(vm));
+        if (next > 0.0 && next != Double.MAX_VALUE) {
+            FinishTime finishTime = new FinishTime(next, vm);
+            nextFinishTimes.put(vm, finishTime);
+            exactFinishTimes.add(finishTime);
+            // one event at each new finish time
+            if (previous == null || previous.time != next) {
+                schedule(getId(), Math.max(next - CloudSim.clock(), 0.0), CloudSimTags.VM_DATACENTER_EVENT);
+            }
+        }
+        updatedVms.add(vm);
+    }
+
+    /**
+     * Brings an analytic vm that was not advanced by the last update to the
+     * time of that update. The other vms are advanced by every update.
+     *
+     * @param vm the vm
+     */
+    private void catchUpVm(Vm vm) {
+        if (isAnalytic(vm) && vm.getCloudletScheduler().getPreviousTime() < getLastProcessTime()) {
+            advanceVm(vm, getLastProcessTime());
+        }
+    }
+
+    /**
+     * Gets the earliest next finish time of the analytic vms, dropping the
+     * stale entries
+     *
+     * @return the earliest finish time, or null if no analytic vm is busy
+     */
+    private FinishTime peekFinishTime() {
+        FinishTime next = exactFinishTimes.peek();
+        while (next != null && nextFinishTimes.get(next.vm) != next) {
+            exactFinishTimes.poll();
+            next = exactFinishTimes.peek();
+        }
+        return next;
+    }
+
+    /**
+     * Gets the index of a host in the host list
+     *
+     * @param host the host
+     * @return the index
+     */
+    private int getHostIndex(Host host) {
+        if (hostIndexes == null) {
+            hostIndexes = new HashMap<>();
+            List<? extends Host> list = getVmAllocationPolicy().getHostList();
+            for (int i = 0; i < list.size(); i++) {
+                hostIndexes.put(list.get(i), i);
+            }
+        }
+        return hostIndexes.get(host);
+    }
     /*
      * Register a file to the storage if it is an output file
      * @param requiredFiles, all files to be stage-in
@@ -382,7 +579,7 @@ public class WorkflowDatacenter extends Datacenter {
                          * Left here for future work
                          */
                         CondorVM vm = (CondorVM) host.getVm(vmId, userId);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        ReplicaCatalog.addFileToVm(file.getName(), vmId);
                         break;
                 }
             }
@@ -17,9 +17,11 @@ package org.workflowsim;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
@@ -62,6 +64,38 @@ public final class WorkflowEngine extends SimEntity {
      */
     private List<Integer> schedulerId;
     private List<WorkflowScheduler> scheduler;
+    /**
+     * The ids of the jobs received, whether they succeeded or failed
+     */
+    private final Set<Integer> receivedIds;
+    /**
+     * The pending jobs of the job list, by job
+     */
+    private final Map<Job, PendingJob> pendingJobs;
+    /**
+     * The pending jobs waiting for a parent, by parent id
+     */
+    private final Map<Integer, List<PendingJob>> waitingJobs;
+    /**
+     * The pending jobs whose parents have all returned, in the order of the
+     * job list
+     */
+    private final PriorityQueue<PendingJob> readyJobs;
+    /**
+     * The number of jobs at the head of the job list that are tracked by
+     * pendingJobs or already released
+     */
+    private int registeredJobs;
+    /**
+     * The number of jobs released but not yet removed from the job list
+     */
+    private int releasedJobs;
+    /**
+     * The number of jobs registered so far. Unlike registeredJobs it is not
+     * lowered when the job list is compacted, so jobs appended later are
+     * always ordered after the older ones.
+     */
+    private long jobSequence;
 
     /**
      * Created a new WorkflowEngine object.
@@ -79,6 +113,10 @@ public final class WorkflowEngine extends SimEntity {
     public WorkflowEngine(String name, int schedulers) throws Exception {
         super(name);
 
+        receivedIds = new HashSet<>();
+        pendingJobs = new HashMap<>();
+        waitingJobs = new HashMap<>();
+        readyJobs = new PriorityQueue<>();
         setJobsList(new ArrayList<>());
         setJobsSubmittedList(new ArrayList<>());
         setJobsReceivedList(new ArrayList<>());
@@ -132,7 +170,7 @@ public final class WorkflowEngine extends SimEntity {
      * @param list the list
      */
     public void submitCloudletList(List<? extends Cloudlet> list) {
-        getJobsList().addAll(list);
+        this.<Cloudlet>typedJobsList().addAll(list);
     }
 
     /**
@@ -218,13 +256,37 @@ public final class WorkflowEngine extends SimEntity {
         Job job = (Job) ev.getData();
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
+            int newId = getPendingJobsNum() + getJobsSubmittedList().size();
+            List<Job> retryList = ReclusteringEngine.process(job, newId);
+            /**
+             * The retry jobs are new parents of the children of the failed
+             * job.
+             */
+            for (Job retryJob : retryList) {
+                for (Object child : retryJob.getChildList()) {
+                    PendingJob pending = pendingJobs.get((Job) child);
+                    if (pending != null) {
+                        waitFor(pending, retryJob.getCloudletId());
+                    }
+                }
+            }
+            this.<Job>typedJobsList().addAll(retryList);
         }
 
         getJobsReceivedList().add(job);
+        if (receivedIds.add(job.getCloudletId())) {
+            List<PendingJob> children = waitingJobs.remove(job.getCloudletId());
+            if (children != null) {
+                for (PendingJob pending : children) {
+                    pending.unfinishedParents--;
+                    if (pending.unfinishedParents == 0) {
+                        readyJobs.add(pending);
+                    }
+                }
+            }
+        }
         jobsSubmitted--;
-        if (getJobsList().isEmpty() && jobsSubmitted == 0) {
+        if (getPendingJobsNum() == 0 && jobsSubmitted == 0) {
             //send msg to all the schedulers
             for (int i = 0; i < getSchedulerIds().size(); i++) {
                 sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
@@ -250,65 +312,136 @@ public final class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Checks whether a job list contains a id
+     * A job of the job list that has not been submitted yet
+     */
+    private static class PendingJob implements Comparable<PendingJob> {
+
+        private final Job job;
+        /**
+         * The position of the job in the job list, counted from the first job
+         * ever registered
+         */
+        private final long order;
+        /**
+         * The number of parents that have not returned yet
+         */
+        private int unfinishedParents;
+
+        private PendingJob(Job job, long order) {
+            this.job = job;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(PendingJob other) {
+            return Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * Gets the number of jobs in the job list, that is the jobs not submitted
+     * yet
      *
-     * @param jobList the job list
-     * @param id the job id
-     * @return
-     */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
+     * @return the number of jobs not submitted yet
+     */
+    private int getPendingJobsNum() {
+        return jobsList.size() - releasedJobs;
+    }
+
+    /**
+     * Makes a pending job wait for a parent, unless the parent has already
+     * returned
+     *
+     * @param pending the pending job
+     * @param parentId the parent id
+     */
+    private void waitFor(PendingJob pending, int parentId) {
+        if (receivedIds.contains(parentId)) {
+            return;
+        }
+        List<PendingJob> children = waitingJobs.get(parentId);
+        if (children == null) {
+            children = new ArrayList<>();
+            waitingJobs.put(parentId, children);
+        }
+        children.add(pending);
+        pending.unfinishedParents++;
+    }
+
+    /**
+     * Starts tracking the jobs appended to the job list since the last call
+     */
+    private void registerJobs() {
+        List<Job> list = typedJobsList();
+        for (; registeredJobs < list.size(); registeredJobs++) {
+            Job job = list.get(registeredJobs);
+            PendingJob pending = new PendingJob(job, jobSequence++);
+            pendingJobs.put(job, pending);
+            for (Object parent : job.getParentList()) {
+                waitFor(pending, ((Job) parent).getCloudletId());
+            }
+            if (pending.unfinishedParents == 0) {
+                readyJobs.add(pending);
+            }
+        }
+    }
+
+    /**
+     * Removes the released jobs from the job list. The order of the other
+     * jobs is kept.
+     */
+    private void compactJobsList() {
+        if (releasedJobs == 0) {
+            return;
+        }
+        List<Job> list = typedJobsList();
+        List<Job> remaining = new ArrayList<>(list.size() - releasedJobs);
+        for (int i = 0; i < list.size(); i++) {
+            if (i >= registeredJobs || pendingJobs.containsKey(list.get(i))) {
+                remaining.add(list.get(i));
             }
         }
-        return false;
+        registeredJobs -= releasedJobs;
+        releasedJobs = 0;
+        list.clear();
+        list.addAll(remaining);
     }
 
     /**
-     * Submit jobs to the created VMs.
+     * Submit jobs to the created VMs. A job is submitted once all its parents
+     * have returned, whether they succeeded or failed. The number of parents
+     * that have not returned is kept for each job and updated when a job
+     * returns, so only the jobs that became ready are visited here.
      *
      * @pre $none
      * @post $none
      */
     protected void submitJobs() {
 
-        List<Job> list = getJobsList();
+        registerJobs();
         Map<Integer, List> allocationList = new HashMap<>();
         for (int i = 0; i < getSchedulers().size(); i++) {
             List<Job> submittedList = new ArrayList<>();
             allocationList.put(getSchedulerId(i), submittedList);
         }
-        int num = list.size();
-        for (int i = 0; i < num; i++) {
-            //at the beginning
-            Job job = list.get(i);
+        while (!readyJobs.isEmpty()) {
+            Job job = readyJobs.poll().job;
             //Dont use job.isFinished() it is not right
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
-                List<Job> parentList = job.getParentList();
-                boolean flag = true;
-                for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
-                        flag = false;
-                        break;
-                    }
-                }
-                /**
-                 * This job's parents have all completed successfully. Should
-                 * submit.
-                 */
-                if (flag) {
-                    List submittedList = allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
-                    list.remove(job);
-                    i--;
-                    num--;
-                }
+            if (receivedIds.contains(job.getCloudletId())) {
+                continue;
             }
-
+            /**
+             * This job's parents have all completed. Should submit.
+             */
+            List submittedList = allocationList.get(job.getUserId());
+            submittedList.add(job);
+            jobsSubmitted++;
+            getJobsSubmittedList().add(job);
+            pendingJobs.remove(job);
+            releasedJobs++;
+        }
+        if (releasedJobs > jobsList.size() / 2) {
+            compactJobsList();
         }
         /**
          * If we have multiple schedulers. Divide them equally.
@@ -369,13 +502,25 @@ public final class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Gets the job list.
+     * Gets the job list, that is the jobs not submitted yet. Jobs may be
+     * appended to it.
      *
      * @param <T> the generic type
      * @return the job list
      */
-    @SuppressWarnings("unchecked")
     public <T extends Cloudlet> List<T> getJobsList() {
+        compactJobsList();
+        return typedJobsList();
+    }
+
+    /**
+     * Gets the job list as it is, released jobs included
+     *
+     * @param <T> the generic type
+     * @return the job list
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Cloudlet> List<T> typedJobsList() {
         return (List<T>) jobsList;
     }
 
@@ -387,6 +532,12 @@ public final class WorkflowEngine extends SimEntity {
      */
     private <T extends Cloudlet> void setJobsList(List<T> jobsList) {
         this.jobsList = jobsList;
+        pendingJobs.clear();
+        waitingJobs.clear();
+        readyJobs.clear();
+        registeredJobs = 0;
+        releasedJobs = 0;
+        jobSequence = 0;
     }
 
     /**
@@ -0,0 +1,334 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WorkflowGraph is a compact, immutable copy of the dependencies of a list of
+ * tasks. A task is known by its index in the list, and its children and
+ * parents are stored in compressed sparse row arrays, so algorithms walking
+ * the workflow can use int arrays instead of the parent and child lists of
+ * each task.
+ *
+ * Every dependency is an edge with an index from 0 to getEdgeNum() - 1. The
+ * edges leaving a task are getChildEdgeStart(task) to getChildEdgeEnd(task)
+ * (excluded), in the order of its child list; the edges entering a task are
+ * reached through getParentEdge(), in the order of the parent indexes. Data
+ * about dependencies, like transfer costs, can be kept in an array indexed by
+ * edge.
+ *
+ * The length, depth and impact of the tasks are copied when the graph is
+ * built. Dependencies on tasks that are not in the list are ignored.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public final class WorkflowGraph {
+
+    /**
+     * The tasks, by index
+     */
+    private final Task[] tasks;
+    /**
+     * The index of each task
+     */
+    private final Map<Task, Integer> indexes;
+    /**
+     * The first child edge of each task, and the number of edges at the end
+     */
+    private final int[] childOffsets;
+    /**
+     * The parent of each edge
+     */
+    private final int[] edgeSources;
+    /**
+     * The child of each edge
+     */
+    private final int[] edgeTargets;
+    /**
+     * The first parent edge of each task in parentEdges, and the number of
+     * edges at the end
+     */
+    private final int[] parentOffsets;
+    /**
+     * The edges entering each task
+     */
+    private final int[] parentEdges;
+    /**
+     * The tasks in topological order
+     */
+    private final int[] topologicalOrder;
+    private final long[] lengths;
+    private final int[] depths;
+    private final double[] impacts;
+
+    /**
+     * Builds the graph of a list of tasks
+     *
+     * @param taskList the tasks
+     */
+    public WorkflowGraph(List<? extends Task> taskList) {
+        int size = taskList.size();
+        tasks = taskList.toArray(new Task[size]);
+        indexes = new HashMap<>(size * 2);
+        lengths = new long[size];
+        depths = new int[size];
+        impacts = new double[size];
+        for (int i = 0; i < size; i++) {
+            indexes.put(tasks[i], i);
+            lengths[i] = tasks[i].getCloudletLength();
+            depths[i] = tasks[i].getDepth();
+            impacts[i] = tasks[i].getImpact();
+        }
+
+        childOffsets = new int[size + 1];
+        int edges = 0;
+        for (int i = 0; i < size; i++) {
+            childOffsets[i] = edges;
+            for (Task child : tasks[i].getChildList()) {
+                if (indexes.containsKey(child)) {
+                    edges++;
+                }
+            }
+        }
+        childOffsets[size] = edges;
+        edgeSources = new int[edges];
+        edgeTargets = new int[edges];
+        parentOffsets = new int[size + 1];
+        int edge = 0;
+        for (int i = 0; i < size; i++) {
+            for (Task child : tasks[i].getChildList()) {
+                Integer index = indexes.get(child);
+                if (index != null) {
+                    edgeSources[edge] = i;
+                    edgeTargets[edge] = index;
+                    parentOffsets[index + 1]++;
+                    edge++;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            parentOffsets[i + 1] += parentOffsets[i];
+        }
+        // the edges are sorted by parent, so each task gets its parents in index order
+        parentEdges = new int[edges];
+        int[] next = new int[size];
+        System.arraycopy(parentOffsets, 0, next, 0, size);
+        for (edge = 0; edge < edges; edge++) {
+            parentEdges[next[edgeTargets[edge]]++] = edge;
+        }
+
+        topologicalOrder = sort();
+    }
+
+    /**
+     * Orders the tasks with Kahn's algorithm. The tasks on a cycle, and the
+     * tasks below them, are left out.
+     *
+     * @return the tasks in topological order
+     */
+    private int[] sort() {
+        int size = tasks.length;
+        int[] unvisitedParents = new int[size];
+        int[] order = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            unvisitedParents[i] = parentOffsets[i + 1] - parentOffsets[i];
+            if (unvisitedParents[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int task = order[head];
+            for (int edge = childOffsets[task]; edge < childOffsets[task + 1]; edge++) {
+                int child = edgeTargets[edge];
+                if (--unvisitedParents[child] == 0) {
+                    order[tail++] = child;
+                }
+            }
+        }
+        if (tail < size) {
+            int[] sorted = new int[tail];
+            System.arraycopy(order, 0, sorted, 0, tail);
+            return sorted;
+        }
+        return order;
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int getTaskNum() {
+        return tasks.length;
+    }
+
+    /**
+     * Gets the number of dependencies
+     *
+     * @return the number of edges
+     */
+    public int getEdgeNum() {
+        return edgeSources.length;
+    }
+
+    /**
+     * Gets a task
+     *
+     * @param index the index of the task
+     * @return the task
+     */
+    public Task getTask(int index) {
+        return tasks[index];
+    }
+
+    /**
+     * Gets the index of a task
+     *
+     * @param task the task
+     * @return the index, or -1 if the task is not in the graph
+     */
+    public int getIndex(Task task) {
+        Integer index = indexes.get(task);
+        if (index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the first edge leaving a task
+     *
+     * @param index the index of the task
+     * @return the edge index
+     */
+    public int getChildEdgeStart(int index) {
+        return childOffsets[index];
+    }
+
+    /**
+     * Gets the end of the edges leaving a task
+     *
+     * @param index the index of the task
+     * @return the edge index after the last edge leaving the task
+     */
+    public int getChildEdgeEnd(int index) {
+        return childOffsets[index + 1];
+    }
+
+    /**
+     * Gets the number of children of a task
+     *
+     * @param index the index of the task
+     * @return the number of children
+     */
+    public int getChildNum(int index) {
+        return childOffsets[index + 1] - childOffsets[index];
+    }
+
+    /**
+     * Gets the number of parents of a task
+     *
+     * @param index the index of the task
+     * @return the number of parents
+     */
+    public int getParentNum(int index) {
+        return parentOffsets[index + 1] - parentOffsets[index];
+    }
+
+    /**
+     * Gets an edge entering a task
+     *
+     * @param index the index of the task
+     * @param k the rank of the parent, from 0 to getParentNum(index) - 1
+     * @return the edge index
+     */
+    public int getParentEdge(int index, int k) {
+        return parentEdges[parentOffsets[index] + k];
+    }
+
+    /**
+     * Gets the parent of an edge
+     *
+     * @param edge the edge index
+     * @return the index of the parent
+     */
+    public int getEdgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    /**
+     * Gets the child of an edge
+     *
+     * @param edge the edge index
+     * @return the index of the child
+     */
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    /**
+     * Gets the tasks in topological order: a task comes after all its
+     * parents, and the roots come first in index order.
+     *
+     * @return a copy of the task indexes in topological order
+     */
+    public int[] getTopologicalOrder() {
+        return topologicalOrder.clone();
+    }
+
+    /**
+     * Checks whether the dependencies have no cycle
+     *
+     * @return true if every task is in the topological order
+     */
+    public boolean isAcyclic() {
+        return topologicalOrder.length == tasks.length;
+    }
+
+    /**
+     * Gets the length of a task when the graph was built
+     *
+     * @param index the index of the task
+     * @return the length
+     */
+    public long getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Gets the depth of a task when the graph was built
+     *
+     * @param index the index of the task
+     * @return the depth
+     */
+    public int getDepth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Gets the impact of a task when the graph was built
+     *
+     * @param index the index of the task
+     * @return the impact
+     */
+    public double getImpact(int index) {
+        return impacts[index];
+    }
+}
@@ -16,23 +16,34 @@
 package org.workflowsim;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.cloudbus.cloudsim.Log;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
+import org.workflowsim.utils.DagUtils;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.FileType;
+import org.workflowsim.utils.Parameters.ParserMode;
 import org.workflowsim.utils.ReplicaCatalog;
 
 /**
- * WorkflowParser parse a DAX into tasks so that WorkflowSim can manage them
+ * WorkflowParser parse a DAX into tasks so that WorkflowSim can manage them.
+ * By default the DAX is read in one forward pass with StAX, which does not
+ * need JDOM and does not keep the document in memory. The JDOM parser can be
+ * selected with Parameters.setParserMode(ParserMode.DOM); both give the same
+ * tasks.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -116,24 +127,263 @@ public final class WorkflowParser {
     }
 
     /**
-     * Sets the depth of a task
+     * Parse a DAX file with the parser set in Parameters
+     */
+    private void parseXmlFile(String path) {
+        if (Parameters.getParserMode() == ParserMode.DOM) {
+            parseXmlDocument(path);
+        } else {
+            parseXmlStream(path);
+        }
+    }
+
+    /**
+     * Gets the length of a task from the runtime of its job element
      *
-     * @param task the task
-     * @param depth the depth
+     * @param nodeName the id of the job
+     * @param nodeTime the runtime of the job, may be null
+     * @return the length
      */
-    private void setDepth(Task task, int depth) {
-        if (depth > task.getDepth()) {
-            task.setDepth(depth);
+    private long getLength(String nodeName, String nodeTime) {
+        long length = 0;
+        /**
+         * capture runtime. If not exist, by default the runtime is 0.1.
+         * Otherwise CloudSim would ignore this task. BUG/#11
+         */
+        double runtime;
+        if (nodeTime != null) {
+            runtime = 1000 * Double.parseDouble(nodeTime);
+            if (runtime < 100) {
+                runtime = 100;
+            }
+            length = (long) runtime;
+        } else {
+            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
+        }   //multiple the scale, by default it is 1.0
+        length *= Parameters.getRuntimeScale();
+        return length;
+    }
+
+    /**
+     * Creates a task from a job element
+     *
+     * @param nodeName the id of the job
+     * @param nodeType the name of the job
+     * @param length the length of the task
+     * @param mFileList the files used by the job
+     */
+    private void addTask(String nodeName, String nodeType, long length, List<FileItem> mFileList) {
+        Task task;
+        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
+        synchronized (this) {
+            task = new Task(this.jobIdStartsFrom, length);
+            this.jobIdStartsFrom++;
+        }
+        task.setType(nodeType);
+        task.setUserId(userId);
+        mName2Task.put(nodeName, task);
+        for (FileItem file : mFileList) {
+            task.addRequiredFile(file.getName());
+        }
+        task.setFileList(mFileList);
+        this.getTaskList().add(task);
+    }
+
+    /**
+     * Creates a file from the attributes of a uses element. Input files are
+     * shared through the ReplicaCatalog.
+     *
+     * @param fileName the name of the file
+     * @param inout the link of the file, input or output
+     * @param fileSize the size of the file, may be null
+     * @return the file
+     */
+    private FileItem createFile(String fileName, String inout, String fileSize) {
+        if (fileName == null) {
+            Log.print("Error in parsing xml");
+        } else {
+            // the files of the same name share a single string
+            fileName = ReplicaCatalog.internFileName(fileName);
+        }
+
+        double size = 0.0;
+
+        if (fileSize != null) {
+            size = Double.parseDouble(fileSize) /*/ 1024*/;
+        } else {
+            Log.printLine("File Size not found for " + fileName);
+        }
+
+        /**
+         * a bug of cloudsim, size 0 causes a problem. 1 is ok.
+         */
+        if (size == 0) {
+            size++;
+        }
+        /**
+         * Sets the file type 1 is input 2 is output
+         */
+        FileType type = FileType.NONE;
+        switch (inout) {
+            case "input":
+                type = FileType.INPUT;
+                break;
+            case "output":
+                type = FileType.OUTPUT;
+                break;
+            default:
+                Log.printLine("Parsing Error");
+                break;
+        }
+        FileItem tFile;
+        /*
+         * Already exists an input file (forget output file)
+         */
+        if (size < 0) {
+            /*
+             * Assuming it is a parsing error
+             */
+            size = 0 - size;
+            Log.printLine("Size is negative, I assume it is a parser error");
+        }
+        /*
+         * Note that CloudSim use size as MB, in this case we use it as Byte
+         */
+        if (type == FileType.OUTPUT) {
+            /**
+             * It is good that CloudSim does tell whether a size is zero
+             */
+            tFile = new FileItem(fileName, size);
+        } else if (ReplicaCatalog.containsFile(fileName)) {
+            tFile = ReplicaCatalog.getFile(fileName);
+        } else {
+
+            tFile = new FileItem(fileName, size);
+            ReplicaCatalog.setFile(fileName, tFile);
         }
-        for (Task cTask : task.getChildList()) {
-            setDepth(cTask, task.getDepth() + 1);
+
+        tFile.setType(type);
+        return tFile;
+    }
+
+    /**
+     * Adds a dependency if both tasks have been read
+     *
+     * @param childTask the child task, may be null
+     * @param parentName the id of the parent job
+     */
+    private void addDependency(Task childTask, String parentName) {
+        if (childTask != null && mName2Task.containsKey(parentName)) {
+            Task parentTask = (Task) mName2Task.get(parentName);
+            parentTask.addChild(childTask);
+            childTask.addParent(parentTask);
+        }
+    }
+
+    /**
+     * Sets the depth of the tasks read, then forgets their names
+     */
+    private void finishParsing() {
+        /**
+         * Add depth from top to bottom. A task without parent is a root task.
+         */
+        DagUtils.setDepths(new ArrayList<>(mName2Task.values()));
+        /**
+         * Clean them so as to save memory. Parsing workflow may take much
+         * memory
+         */
+        this.mName2Task.clear();
+    }
+
+    /**
+     * Parse a DAX file with StAX. The jobs and their dependencies are read
+     * in one forward pass, without building the document.
+     */
+    private void parseXmlStream(String path) {
+
+        try (InputStream in = new FileInputStream(path)) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            try {
+                int level = 0;
+                String element = null;
+                String nodeName = null;
+                String nodeType = null;
+                long length = 0;
+                List<FileItem> mFileList = null;
+                Task childTask = null;
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            level++;
+                            if (level == 2) {
+                                /**
+                                 * A job or a dependency, under the root
+                                 */
+                                element = reader.getLocalName().toLowerCase();
+                                switch (element) {
+                                    case "job":
+                                        nodeName = reader.getAttributeValue(null, "id");
+                                        nodeType = reader.getAttributeValue(null, "name");
+                                        length = getLength(nodeName, reader.getAttributeValue(null, "runtime"));
+                                        mFileList = new ArrayList<>();
+                                        break;
+                                    case "child":
+                                        childTask = mName2Task.get(reader.getAttributeValue(null, "ref"));
+                                        break;
+                                }
+                            } else if (level == 3 && element != null) {
+                                switch (element) {
+                                    case "job":
+                                        if (reader.getLocalName().toLowerCase().equals("uses")) {
+                                            String fileName = reader.getAttributeValue(null, "name");//DAX version 3.3
+                                            if (fileName == null) {
+                                                fileName = reader.getAttributeValue(null, "file");//DAX version 3.0
+                                            }
+                                            mFileList.add(createFile(fileName,
+                                                    reader.getAttributeValue(null, "link"),
+                                                    reader.getAttributeValue(null, "size")));
+                                        }
+                                        break;
+                                    case "child":
+                                        addDependency(childTask, reader.getAttributeValue(null, "ref"));
+                                        break;
+                                }
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            if (level == 2 && "job".equals(element)) {
+                                addTask(nodeName, nodeType, length, mFileList);
+                                mFileList = null;
+                            }
+                            if (level == 2) {
+                                element = null;
+                                childTask = null;
+                            }
+                            level--;
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            finishParsing();
+
+        } catch (XMLStreamException xse) {
+            Log.printLine("XML Stream Exception;Please make sure your dax file is valid");
+
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
         }
     }
 
     /**
      * Parse a DAX file with jdom
      */
-    private void parseXmlFile(String path) {
+    private void parseXmlDocument(String path) {
 
         try {
 
@@ -145,26 +395,8 @@ public final class WorkflowParser {
             for (Element node : list) {
                 switch (node.getName().toLowerCase()) {
                     case "job":
-                        long length = 0;
                         String nodeName = node.getAttributeValue("id");
-                        String nodeType = node.getAttributeValue("name");
-                        /**
-                         * capture runtime. If not exist, by default the runtime
-                         * is 0.1. Otherwise CloudSim would ignore this task.
-                         * BUG/#11
-                         */
-                        double runtime;
-                        if (node.getAttributeValue("runtime") != null) {
-                            String nodeTime = node.getAttributeValue("runtime");
-                            runtime = 1000 * Double.parseDouble(nodeTime);
-                            if (runtime < 100) {
-                                runtime = 100;
-                            }
-                            length = (long) runtime;
-                        } else {
-                            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
-                        }   //multiple the scale, by default it is 1.0
-                        length *= Parameters.getRuntimeScale();
+                        long length = getLength(nodeName, node.getAttributeValue("runtime"));
                         List<Element> fileList = node.getChildren();
                         List<FileItem> mFileList = new ArrayList<>();
                         for (Element file : fileList) {
@@ -173,146 +405,37 @@ public final class WorkflowParser {
                                 if (fileName == null) {
                                     fileName = file.getAttributeValue("file");//DAX version 3.0
                                 }
-                                if (fileName == null) {
-                                    Log.print("Error in parsing xml");
-                                }
-
-                                String inout = file.getAttributeValue("link");
-                                double size = 0.0;
-
-                                String fileSize = file.getAttributeValue("size");
-                                if (fileSize != null) {
-                                    size = Double.parseDouble(fileSize) /*/ 1024*/;
-                                } else {
-                                    Log.printLine("File Size not found for " + fileName);
-                                }
-
-                                /**
-                                 * a bug of cloudsim, size 0 causes a problem. 1
-                                 * is ok.
-                                 */
-                                if (size == 0) {
-                                    size++;
-                                }
-                                /**
-                                 * Sets the file type 1 is input 2 is output
-                                 */
-                                FileType type = FileType.NONE;
-                                switch (inout) {
-                                    case "input":
-                                        type = FileType.INPUT;
-                                        break;
-                                    case "output":
-                                        type = FileType.OUTPUT;
-                                        break;
-                                    default:
-                                        Log.printLine("Parsing Error");
-                                        break;
-                                }
-                                FileItem tFile;
-                                /*
-                                 * Already exists an input file (forget output file)
-                                 */
-                                if (size < 0) {
-                                    /*
-                                     * Assuming it is a parsing error
-                                     */
-                                    size = 0 - size;
-                                    Log.printLine("Size is negative, I assume it is a parser error");
-                                }
-                                /*
-                                 * Note that CloudSim use size as MB, in this case we use it as Byte
-                                 */
-                                if (type == FileType.OUTPUT) {
-                                    /**
-                                     * It is good that CloudSim does tell
-                                     * whether a size is zero
-                                     */
-                                    tFile = new FileItem(fileName, size);
-                                } else if (ReplicaCatalog.containsFile(fileName)) {
-                                    tFile = ReplicaCatalog.getFile(fileName);
-                                } else {
-
-                                    tFile = new FileItem(fileName, size);
-                                    ReplicaCatalog.setFile(fileName, tFile);
-                                }
-
-                                tFile.setType(type);
-                                mFileList.add(tFile);
-
+                                mFileList.add(createFile(fileName, file.getAttributeValue("link"),
+                                        file.getAttributeValue("size")));
                             }
                         }
-                        Task task;
-                        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
-                        synchronized (this) {
-                            task = new Task(this.jobIdStartsFrom, length);
-                            this.jobIdStartsFrom++;
-                        }
-                        task.setType(nodeType);
-                        task.setUserId(userId);
-                        mName2Task.put(nodeName, task);
-                        for (FileItem file : mFileList) {
-                            task.addRequiredFile(file.getName());
-                        }
-                        task.setFileList(mFileList);
-                        this.getTaskList().add(task);
-
-                        /**
-                         * Add dependencies info.
-                         */
+                        addTask(nodeName, node.getAttributeValue("name"), length, mFileList);
                         break;
                     case "child":
                         List<Element> pList = node.getChildren();
-                        String childName = node.getAttributeValue("ref");
-                        if (mName2Task.containsKey(childName)) {
-
-                            Task childTask = (Task) mName2Task.get(childName);
-
-                            for (Element parent : pList) {
-                                String parentName = parent.getAttributeValue("ref");
-                                if (mName2Task.containsKey(parentName)) {
-                                    Task parentTask = (Task) mName2Task.get(parentName);
-                                    parentTask.addChild(childTask);
-                                    childTask.addParent(parentTask);
-                                }
-                            }
+                        Task childTask = mName2Task.get(node.getAttributeValue("ref"));
+                        for (Element parent : pList) {
+                            addDependency(childTask, parent.getAttributeValue("ref"));
                         }
                         break;
                 }
             }
-            /**
-             * If a task has no parent, then it is root task.
-             */
-            ArrayList roots = new ArrayList<>();
-            for (Task task : mName2Task.values()) {
-                task.setDepth(0);
-                if (task.getParentList().isEmpty()) {
-                    roots.add(task);
-                }
-            }
-
-            /**
-             * Add depth from top to bottom.
-             */
-            for (Iterator it = roots.iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                setDepth(task, 1);
-            }
-            /**
-             * Clean them so as to save memory. Parsing workflow may take much
-             * memory
-             */
-            this.mName2Task.clear();
-
-        } catch (JDOMException jde) {
-            Log.printLine("JDOM Exception;Please make sure your dax file is valid");
+            finishParsing();
 
         } catch (IOException ioe) {
             Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
 
         } catch (Exception e) {
-            e.printStackTrace();
-            Log.printLine("Parsing Exception");
+            /**
+             * JDOMException is not caught by its type, so that this class can
+             * be loaded without JDOM when the DAX is streamed.
+             */
+            if (e instanceof JDOMException) {
+                Log.printLine("JDOM Exception;Please make sure your dax file is valid");
+            } else {
+                e.printStackTrace();
+                Log.printLine("Parsing Exception");
+            }
         }
     }
 }
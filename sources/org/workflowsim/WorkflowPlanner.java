@@ -26,6 +26,7 @@ import org.workflowsim.planning.DHEFTPlanningAlgorithm;
 import org.workflowsim.planning.HEFTPlanningAlgorithm;
 import org.workflowsim.planning.IWDPlanningAlgorithm;
 import org.workflowsim.planning.RandomPlanningAlgorithm;
+import org.workflowsim.utils.DagUtils;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.PlanningAlgorithm;
 
@@ -49,6 +50,10 @@ public final class WorkflowPlanner extends SimEntity {
      * The workflow parser.
      */
     protected WorkflowParser parser;
+    /**
+     * The graph of the task list, built after parsing.
+     */
+    private WorkflowGraph graph;
     /**
      * The associated clustering engine.
      */
@@ -105,6 +110,15 @@ public final class WorkflowPlanner extends SimEntity {
         return this.parser;
     }
 
+    /**
+     * Gets the graph of the tasks, built once the workflow has been parsed
+     *
+     * @return the workflow graph, or null before parsing
+     */
+    public WorkflowGraph getWorkflowGraph() {
+        return this.graph;
+    }
+
     /**
      * Gets the workflow engine id
      *
@@ -136,8 +150,9 @@ public final class WorkflowPlanner extends SimEntity {
             case WorkflowSimTags.START_SIMULATION:
                 getWorkflowParser().parse();
                 setTaskList(getWorkflowParser().getTaskList());
-                processPlanning();
                 processImpactFactors(getTaskList());
+                this.graph = new WorkflowGraph(getTaskList());
+                processPlanning();
                 sendNow(getClusteringEngineId(), WorkflowSimTags.JOB_SUBMIT, getTaskList());
                 break;
             case CloudSimTags.END_OF_SIMULATION:
@@ -157,6 +172,7 @@ public final class WorkflowPlanner extends SimEntity {
         BasePlanningAlgorithm planner = getPlanningAlgorithm(Parameters.getPlanningAlgorithm());
         
         planner.setTaskList(getTaskList());
+        planner.setWorkflowGraph(getWorkflowGraph());
         planner.setVmList(getWorkflowEngine().getAllVmList());
         try {
             planner.run();
@@ -208,34 +224,7 @@ public final class WorkflowPlanner extends SimEntity {
      * @param taskList all the tasks
      */
     private void processImpactFactors(List<Task> taskList) {
-        List<Task> exits = new ArrayList<>();
-        for (Task task : taskList) {
-            if (task.getChildList().isEmpty()) {
-                exits.add(task);
-            }
-        }
-        double avg = 1.0 / exits.size();
-        for (Task task : exits) {
-            addImpact(task, avg);
-        }
-    }
-
-    /**
-     * Add impact factor for one particular task
-     *
-     * @param task, the task
-     * @param impact , the impact factor
-     */
-    private void addImpact(Task task, double impact) {
-
-        task.setImpact(task.getImpact() + impact);
-        int size = task.getParentList().size();
-        if (size > 0) {
-            double avg = impact / size;
-            for (Task parent : task.getParentList()) {
-                addImpact(parent, avg);
-            }
-        }
+        DagUtils.addImpacts(taskList);
     }
 
     /**
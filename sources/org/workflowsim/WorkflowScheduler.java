@@ -15,8 +15,11 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.Log;
@@ -52,6 +55,45 @@ public class WorkflowScheduler extends DatacenterBroker {
      * The workflow engine id associated with this workflow algorithm.
      */
     private int workflowEngineId;
+    /**
+     * The scheduling algorithm, created at the first scheduling pass and
+     * reused by the next ones.
+     */
+    private BaseSchedulingAlgorithm algorithm;
+    /**
+     * The idle vms, created at the first scheduling pass and updated as the
+     * vms change state
+     */
+    private IdleVmRegistry idleVms;
+    /**
+     * The number of vms in idleVms
+     */
+    private int idleVmsRegistered = 0;
+    /**
+     * How long a scheduling pass waits for other jobs to return or arrive.
+     * If negative, every job returned or submitted runs its own pass.
+     * Otherwise the requests made while a pass is pending are served by that
+     * pass, and 0 (the default) coalesces the requests made at the same
+     * time, which gives the same schedule as one pass per job.
+     */
+    private double updateWindow = 0.0;
+    /**
+     * Whether a scheduling pass has been scheduled and not run yet
+     */
+    private boolean updatePending = false;
+    /**
+     * The number of scheduling passes requested
+     */
+    private int updatesRequested = 0;
+    /**
+     * The number of scheduling passes run
+     */
+    private int updatesRun = 0;
+    /**
+     * Whether the passes saved have been logged, as the entity is shut down
+     * twice
+     */
+    private boolean updatesReported = false;
 
     /**
      * Created a new WorkflowScheduler object.
@@ -79,6 +121,38 @@ public class WorkflowScheduler extends DatacenterBroker {
         this.datacenterIdsList.add(datacenterId);
     }
 
+    /**
+     * Sets how long a scheduling pass waits for other jobs to return or
+     * arrive. A negative window runs a pass for every job returned or
+     * submitted, 0 (the default) runs one pass for all the jobs returned or
+     * submitted at the same time, and a positive window delays the pass so
+     * that later jobs can join it.
+     *
+     * @param window the window in seconds
+     */
+    public void setUpdateWindow(double window) {
+        this.updateWindow = window;
+    }
+
+    /**
+     * Gets how long a scheduling pass waits for other jobs to return or
+     * arrive
+     *
+     * @return the window in seconds, negative if passes are not coalesced
+     */
+    public double getUpdateWindow() {
+        return this.updateWindow;
+    }
+
+    /**
+     * Gets the number of scheduling passes saved by coalescing them
+     *
+     * @return the number of passes requested but not run
+     */
+    public int getUpdatesSaved() {
+        return updatesRequested - updatesRun;
+    }
+
     /**
      * Sets the workflow engine id
      *
@@ -184,10 +258,9 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     @Override
     protected void processVmCreate(SimEvent ev) {
-        int[] data = (int[]) ev.getData();
-        int datacenterId = data[0];
-        int vmId = data[1];
-        int result = data[2];
+        int datacenterId = ev.getAcknowledgingId();
+        int vmId = ev.getAcknowledgedId();
+        int result = ev.getAcknowledgementStatus();
 
         if (result == CloudSimTags.TRUE) {
             getVmsToDatacentersMap().put(vmId, datacenterId);
@@ -197,13 +270,13 @@ public class WorkflowScheduler extends DatacenterBroker {
              */
             if (VmList.getById(getVmList(), vmId) != null) {
                 getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
-                Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId
-                        + " has been created in Datacenter #" + datacenterId + ", Host #"
-                        + VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
+                Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": VM #", vmId,
+                        " has been created in Datacenter #", datacenterId, ", Host #",
+                        VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
             }
         } else {
-            Log.printLine(CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
-                    + " failed in Datacenter #" + datacenterId);
+            Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Creation of VM #", vmId,
+                    " failed in Datacenter #", datacenterId);
         }
 
         incrementVmsAcks();
@@ -226,8 +299,8 @@ public class WorkflowScheduler extends DatacenterBroker {
                 if (getVmsCreatedList().size() > 0) { // if some vm were created
                     submitCloudlets();
                 } else { // no vms created. abort
-                    Log.printLine(CloudSim.clock() + ": " + getName()
-                            + ": none of the required VMs could be created. Aborting");
+                    Log.printConcatLine(CloudSim.clock(), ": ", getName(),
+                            ": none of the required VMs could be created. Aborting");
                     finishExecution();
                 }
             }
@@ -241,9 +314,20 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     protected void processCloudletUpdate(SimEvent ev) {
 
-        BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
+        updatePending = false;
+        updatesRun++;
+        if (algorithm == null) {
+            algorithm = getScheduler(Parameters.getSchedulingAlgorithm());
+        }
+        BaseSchedulingAlgorithm scheduler = algorithm;
+        scheduler.getScheduledList().clear();
         scheduler.setCloudletList(getCloudletList());
         scheduler.setVmList(getVmsCreatedList());
+        if (idleVms == null || idleVmsRegistered != getVmsCreatedList().size()) {
+            idleVms = new IdleVmRegistry(getVmsCreatedList());
+            idleVmsRegistered = getVmsCreatedList().size();
+        }
+        scheduler.setIdleVms(idleVms);
 
         try {
             scheduler.run();
@@ -253,6 +337,9 @@ public class WorkflowScheduler extends DatacenterBroker {
         }
 
         List<Cloudlet> scheduledList = scheduler.getScheduledList();
+        if (scheduledList.isEmpty()) {
+            return;
+        }
         for (Cloudlet cloudlet : scheduledList) {
             int vmId = cloudlet.getVmId();
             double delay = 0.0;
@@ -261,11 +348,48 @@ public class WorkflowScheduler extends DatacenterBroker {
             }
             schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
         }
-        getCloudletList().removeAll(scheduledList);
+        removeScheduled(scheduledList);
         getCloudletSubmittedList().addAll(scheduledList);
         cloudletsSubmitted += scheduledList.size();
     }
 
+    /**
+     * Removes the scheduled jobs from the waiting list in a single pass,
+     * keeping the order of the others.
+     *
+     * @param scheduledList the scheduled jobs
+     */
+    private void removeScheduled(List<Cloudlet> scheduledList) {
+        List<Cloudlet> list = getCloudletList();
+        Set<Cloudlet> scheduled = new HashSet<>(scheduledList);
+        List<Cloudlet> remaining = new ArrayList<>(list.size());
+        for (Cloudlet cloudlet : list) {
+            if (!scheduled.contains(cloudlet)) {
+                remaining.add(cloudlet);
+            }
+        }
+        list.clear();
+        list.addAll(remaining);
+    }
+
+    /**
+     * Requests a scheduling pass. If passes are coalesced, the request is
+     * served by the pending pass if there is one.
+     *
+     * @return true if the request has to run its own pass now
+     */
+    private boolean requestUpdate() {
+        updatesRequested++;
+        if (updateWindow < 0) {
+            return true;
+        }
+        if (!updatePending) {
+            updatePending = true;
+            schedule(this.getId(), updateWindow, WorkflowSimTags.CLOUDLET_UPDATE);
+        }
+        return false;
+    }
+
     /**
      * Process a cloudlet (job) return event.
      *
@@ -297,8 +421,10 @@ public class WorkflowScheduler extends DatacenterBroker {
         schedule(this.workflowEngineId, delay, CloudSimTags.CLOUDLET_RETURN, cloudlet);
 
         cloudletsSubmitted--;
-        //not really update right now, should wait 1 s until many jobs have returned
-        schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+        //not really update right now, unless updateWindow is set
+        if (requestUpdate()) {
+            schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+        }
 
     }
 
@@ -327,6 +453,11 @@ public class WorkflowScheduler extends DatacenterBroker {
     @Override
     public void shutdownEntity() {
         clearDatacenters();
+        if (updateWindow >= 0 && !updatesReported) {
+            updatesReported = true;
+            Log.printLine(getName() + ": " + getUpdatesSaved() + " of " + updatesRequested
+                    + " scheduling passes saved by coalescing");
+        }
         Log.printLine(getName() + " is shutting down...");
     }
 
@@ -351,7 +482,9 @@ public class WorkflowScheduler extends DatacenterBroker {
         List<Job> list = (List) ev.getData();
         getCloudletList().addAll(list);
 
-        sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+        if (requestUpdate()) {
+            sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+        }
         if (!processCloudletSubmitHasShown) {
             processCloudletSubmitHasShown = true;
         }
@@ -367,8 +500,9 @@ public class WorkflowScheduler extends DatacenterBroker {
     @Override
     protected void processResourceCharacteristicsRequest(SimEvent ev) {
         setDatacenterCharacteristicsList(new HashMap<>());
-        Log.printLine(CloudSim.clock() + ": " + getName() + ": Cloud Resource List received with "
-                + getDatacenterIdsList().size() + " resource(s)");
+        Log.printConcatLine(CloudSim.clock(), ": ", getName(),
+                ": Cloud Resource List received with ", getDatacenterIdsList().size(),
+                " resource(s)");
         for (Integer datacenterId : getDatacenterIdsList()) {
             sendNow(datacenterId, CloudSimTags.RESOURCE_CHARACTERISTICS, getId());
         }
@@ -17,8 +17,10 @@ package org.workflowsim.clustering;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.workflowsim.FileItem;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
@@ -51,6 +53,10 @@ public class BasicClustering implements ClusteringInterface {
      * All the files.
      */
     private final List<FileItem> allFileList;
+    /**
+     * The input files in allFileList.
+     */
+    private final Set<FileItem> allInputFiles;
     /**
      * The root task.
      */
@@ -78,6 +84,7 @@ public class BasicClustering implements ClusteringInterface {
         this.taskList = new ArrayList<>();
         this.mTask2Job = new HashMap<>();
         this.allFileList = new ArrayList<>();
+        this.allInputFiles = new HashSet<>();
         this.idIndex = 0;
         this.root = null;
     }
@@ -169,6 +176,7 @@ public class BasicClustering implements ClusteringInterface {
             /// a bug of cloudsim makes it final of input file size and output file size
             Job job = new Job(idIndex, length/*, inputFileSize, outputFileSize*/);
             job.setClassType(ClassType.COMPUTE.value);
+            Set<FileItem> jobFiles = new HashSet<>();
             for (Task task : taskList) {
                 length += task.getCloudletLength();
 
@@ -180,12 +188,11 @@ public class BasicClustering implements ClusteringInterface {
 
                 getTask2Job().put(task, job);
                 for (FileItem file : fileList) {
-                    boolean hasFile = job.getFileList().contains(file);
-                    if (!hasFile) {
-                        job.getFileList().add(file);
+                    if (jobFiles.add(file)) {
+                        job.addFile(file);
                         if (file.getType() == FileType.INPUT) {
                             //for stag-in jobs to be used
-                            if (!this.allFileList.contains(file)) {
+                            if (this.allInputFiles.add(file)) {
                                 this.allFileList.add(file);
                             }
                         } else if (file.getType() == FileType.OUTPUT) {
@@ -16,6 +16,7 @@
 package org.workflowsim.clustering;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.workflowsim.Task;
 
@@ -48,6 +49,10 @@ public class TaskSet {
      * the impact factor.
      */
     private double impactFactor;
+    /**
+     * the sum of the task runtime, kept up to date as tasks are added.
+     */
+    private long jobRuntime;
 
     /**
      * Initialize a TaskSet object
@@ -97,12 +102,13 @@ public class TaskSet {
     }
 
     /**
-     * Gets task list
+     * Gets task list. The list can't be modified, use addTask() and
+     * clearTasks() instead so that the job runtime is kept up to date.
      *
      * @return task list
      */
     public List<Task> getTaskList() {
-        return this.taskList;
+        return Collections.unmodifiableList(this.taskList);
     }
 
     /**
@@ -112,6 +118,7 @@ public class TaskSet {
      */
     public void addTask(Task task) {
         this.taskList.add(task);
+        this.jobRuntime += task.getCloudletLength();
     }
 
     /**
@@ -120,19 +127,27 @@ public class TaskSet {
      * @param list to be added
      */
     public void addTask(List<Task> list) {
+        for (Task task : list) {
+            this.jobRuntime += task.getCloudletLength();
+        }
         this.taskList.addAll(list);
     }
 
     /**
-     * Gets the job runtime of this taskSet (sum of task runtime)
+     * Removes all the tasks of this taskSet
+     */
+    public void clearTasks() {
+        this.taskList.clear();
+        this.jobRuntime = 0;
+    }
+
+    /**
+     * Gets the job runtime of this taskSet (sum of task runtime). It is
+     * updated as tasks are added, so it takes constant time.
      *
      * @return job runtime
      */
     public long getJobRuntime() {
-        long runtime = 0;
-        for (Task task : taskList) {
-            runtime += task.getCloudletLength();
-        }
-        return runtime;
+        return this.jobRuntime;
     }
 }
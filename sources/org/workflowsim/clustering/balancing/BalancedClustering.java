@@ -16,12 +16,15 @@
 package org.workflowsim.clustering.balancing;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Log.Level;
 import org.workflowsim.Task;
 import org.workflowsim.clustering.BasicClustering;
 import org.workflowsim.clustering.TaskSet;
@@ -56,9 +59,25 @@ public class BalancedClustering extends BasicClustering {
      */
     private final Map<Task, TaskSet> mTask2TaskSet;
     /**
-     * Map from taskSet to its depth.
+     * The parents of a task, for a ReachabilityIndex of the tasks
      */
-    private final Map<TaskSet, Integer> mTaskSet2Depth;
+    private static final ReachabilityIndex.Dependencies<Task> TASK_DEPENDENCIES =
+            new ReachabilityIndex.Dependencies<Task>() {
+                @Override
+                public List<Task> getParents(Task task) {
+                    return task.getParentList();
+                }
+            };
+    /**
+     * The parents of a taskSet, for a ReachabilityIndex of the taskSets
+     */
+    private static final ReachabilityIndex.Dependencies<TaskSet> TASK_SET_DEPENDENCIES =
+            new ReachabilityIndex.Dependencies<TaskSet>() {
+                @Override
+                public List<TaskSet> getParents(TaskSet set) {
+                    return set.getParentList();
+                }
+            };
 
     /**
      * Initialize a BalancedClustering method
@@ -69,7 +88,6 @@ public class BalancedClustering extends BasicClustering {
         super();
         this.clusterNum = clusterNum;
         this.mTask2TaskSet = new HashMap<>();
-        mTaskSet2Depth = new HashMap<>();
     }
 
     /**
@@ -84,21 +102,30 @@ public class BalancedClustering extends BasicClustering {
     }
 
     /**
-     * Add impact factor to a TaskSet
+     * Add impact factor to the TaskSets. Each exit receives impact, and a
+     * TaskSet passes what it receives equally to its parents. The TaskSets are
+     * visited once, from the exits up in reverse topological order, instead of
+     * following every path from each exit.
      *
-     * @param set TaskSet
-     * @param impact Impact Factor
+     * @param index the index of the TaskSets
+     * @param exits the exits
+     * @param impact Impact Factor of each exit
      */
-    private void addImpact(TaskSet set, double impact) {
-        /*
-         * follow the path from set
-         */
-        set.setImpactFafctor(set.getImpactFactor() + impact);
-        int size = set.getParentList().size();
-        if (size > 0) {
-            double avg = impact / size;
-            for (TaskSet parent : set.getParentList()) {
-                addImpact(parent, avg);
+    private void addImpact(ReachabilityIndex<TaskSet> index, List<TaskSet> exits, double impact) {
+        List<TaskSet> order = index.getTopologicalOrder();
+        double[] impacts = new double[order.size()];
+        for (TaskSet set : exits) {
+            impacts[index.getPosition(set)] += impact;
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            TaskSet set = order.get(i);
+            set.setImpactFafctor(set.getImpactFactor() + impacts[i]);
+            int size = set.getParentList().size();
+            if (size > 0) {
+                double avg = impacts[i] / size;
+                for (TaskSet parent : set.getParentList()) {
+                    impacts[index.getPosition(parent)] += avg;
+                }
             }
         }
     }
@@ -107,7 +134,8 @@ public class BalancedClustering extends BasicClustering {
      * Print out all the balancing metrics
      */
     public void printMetrics() {
-        Map<Integer, List<TaskSet>> map = getCurrentTaskSetAtLevels();
+        ReachabilityIndex<TaskSet> index = getTaskSetIndex();
+        Map<Integer, List<TaskSet>> map = getTaskSetAtLevels(index);
         for (TaskSet set : mTask2TaskSet.values()) {
             set.setImpactFafctor(0.0);
         }
@@ -121,10 +149,7 @@ public class BalancedClustering extends BasicClustering {
         }
         List<TaskSet> exits = map.get(maxDepth);
         double avg = 1.0 / exits.size();
-        for (TaskSet set : exits) {
-            //set.setImpactFafctor(avg);
-            addImpact(set, avg);
-        }
+        addImpact(index, exits, avg);
 
         for (Entry<Integer, List<TaskSet>> entry : map.entrySet()) {
             int depth = entry.getKey();
@@ -145,10 +170,9 @@ public class BalancedClustering extends BasicClustering {
              * Distance Variance.
              */
             double dv = new DistanceVariance().getMetric(list);
-            Log.printLine("HRV " + depth + " " + list.size()
-                    + " " + hrv + "\nIFV " + depth + " "
-                    + list.size() + " " + ifv + "\nPRV " + depth
-                    + " " + list.size() + " " + prv + "\nDV " + depth + " " + list.size() + " " + dv);
+            Log.printConcatLine("HRV ", depth, " ", list.size(), " ", hrv, "\nIFV ", depth, " ",
+                    list.size(), " ", ifv, "\nPRV ", depth, " ", list.size(), " ", prv, "\nDV ",
+                    depth, " ", list.size(), " ", dv);
 
         }
     }
@@ -159,6 +183,25 @@ public class BalancedClustering extends BasicClustering {
      * @return tasks list per level
      */
     public Map<Integer, List<TaskSet>> getCurrentTaskSetAtLevels() {
+        return getTaskSetAtLevels(getTaskSetIndex());
+    }
+
+    /**
+     * Builds the index of the current TaskSets
+     *
+     * @return the index
+     */
+    private ReachabilityIndex<TaskSet> getTaskSetIndex() {
+        return new ReachabilityIndex<>(mTask2TaskSet.values(), TASK_SET_DEPENDENCIES);
+    }
+
+    /**
+     * Gets the current tasks per level
+     *
+     * @param index the index of the current TaskSets
+     * @return tasks list per level
+     */
+    private Map<Integer, List<TaskSet>> getTaskSetAtLevels(ReachabilityIndex<TaskSet> index) {
         //makesure it is updated 
 
         //makesure Taskset.hasChecked is false
@@ -167,7 +210,7 @@ public class BalancedClustering extends BasicClustering {
         for (TaskSet set : sets) {
             if (!set.hasChecked) {
                 set.hasChecked = true;
-                int depth = getDepth(set);
+                int depth = index.getDepth(set);
                 if (!map.containsKey(depth)) {
                     map.put(depth, new ArrayList<>());
                 }
@@ -176,119 +219,57 @@ public class BalancedClustering extends BasicClustering {
 
             }
         }
-        mTaskSet2Depth.clear();
         //must do
         cleanTaskSetChecked();
         return map;
     }
 
-    /**
-     * Gets the depth of a TaskSet
-     *
-     * @param set TaskSet
-     * @return depth
-     */
-    private int getDepth(TaskSet set) {
-        if (mTaskSet2Depth.containsKey(set)) {
-            return mTaskSet2Depth.get(set);
-        } else {
-            int depth = 0;
-            for (TaskSet parent : set.getParentList()) {
-                int curDepth = getDepth(parent);
-                if (curDepth > depth) {
-                    depth = curDepth;
-                }
-            }
-            depth++;
-            mTaskSet2Depth.put(set, depth);
-            return depth;
-
-        }
-
-    }
-
-    /**
-     * Check whether a task is an ancestor of another set
-     *
-     * @param ancestor ancestor
-     * @param set child
-     * @return
-     */
-    private boolean check(Task ancestor, Task set) {
-        if (ancestor == null || set == null) {
-            return false;
-        }
-        if (ancestor == set) {
-            return true;
-        }
-        for (Task parent : set.getParentList()) {
-            if (check(ancestor, parent)) {
-                return true;
-            } else {
-                //parent.hasChecked = true;
-            }
-        }
-        return false;
-    }
     /**
      * used for recover.
      */
-    private final Map<Task, Task> mRecover = new HashMap<>();
+    private final Map<Task, List<Task>> mRecover = new HashMap<>();
 
     /**
-     * Add pairs that needs to remove to mRecover.
+     * Removes the redundant edges and adds them to mRecover. An edge from a
+     * task to a child is redundant if the child is also a descendant of
+     * another child, so a child is kept unless it is in the descendants of
+     * the children. Removing redundant edges does not change the ancestors of
+     * any task, so a single index answers for the whole reduction.
      */
     private void remove() {
-
+        ReachabilityIndex<Task> index = new ReachabilityIndex<>(getTaskList(), TASK_DEPENDENCIES);
         for (Task set : this.getTaskList()) {
             if (set.getChildList().size() >= 2) {
-                for (int i = 0; i < set.getChildList().size(); i++) {
-                    Task children = (Task) set.getChildList().get(i);
-                    for (int j = i + 1; j < set.getChildList().size(); j++) {
-                        Task another = (Task) set.getChildList().get(j);
-                        // avoid unnecessary checks
-                        if (children.getDepth() > another.getDepth()) {
-                            if (check(another, children)) {
-                                //remove i
-                                set.getChildList().remove(children);
-                                children.getParentList().remove(set);
-                                i--;
-                                mRecover.put(set, children);
-                                //cleanTaskSetChecked();
-                                break;
-                            } else {
-                                //cleanTaskSetChecked();
-                            }
-                        }
-                        if (another.getDepth() > children.getDepth()) {
-                            if (check(children, another)) {
-                                set.getChildList().remove(another);
-                                another.getParentList().remove(set);
-                                i--;
-                                mRecover.put(set, another);
-                                //cleanTaskSetChecked();
-                                break;
-                            } else {
-                                //cleanTaskSetChecked();
-                            }
+                BitSet descendants = new BitSet();
+                for (Task children : set.getChildList()) {
+                    index.addDescendants(children, descendants);
+                }
+                for (Iterator<Task> it = set.getChildList().iterator(); it.hasNext();) {
+                    Task children = it.next();
+                    int position = index.getPosition(children);
+                    if (position >= 0 && descendants.get(position)) {
+                        it.remove();
+                        children.getParentList().remove(set);
+                        if (!mRecover.containsKey(set)) {
+                            mRecover.put(set, new ArrayList<Task>());
                         }
+                        mRecover.get(set).add(children);
                     }
-
                 }
             }
-
         }
     }
 
     /**
-     * Add the pair from the mRecover.
+     * Add the pairs from the mRecover.
      */
     private void recover() {
-        for (Entry<Task, Task> entry : mRecover.entrySet()) {
+        for (Entry<Task, List<Task>> entry : mRecover.entrySet()) {
             Task set = entry.getKey();
-            Task children = entry.getValue();
-            set.getChildList().add(children);
-            children.getParentList().add(set);
+            for (Task children : entry.getValue()) {
+                set.getChildList().add(children);
+                children.getParentList().add(set);
+            }
         }
     }
 
@@ -380,8 +361,11 @@ public class BalancedClustering extends BasicClustering {
                 set.hasChecked = true;
 
                 Log.printLine("Job");
-                for (Task task : set.getTaskList()) {
-                    Log.printLine("Task " + task.getCloudletId() + " " + task.getImpact() + " " + task.getCloudletLength());
+                if (Log.isEnabled(Level.INFO)) {
+                    for (Task task : set.getTaskList()) {
+                        Log.printConcatLine("Task ", task.getCloudletId(), " ", task.getImpact(),
+                                " ", task.getCloudletLength());
+                    }
                 }
             }
         }
@@ -0,0 +1,256 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.clustering.balancing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReachabilityIndex answers dependency questions on a workflow, whether its
+ * nodes are tasks or task sets, without walking the paths of the workflow for
+ * each question. The nodes are sorted in topological order once, then:
+ *
+ * - the depth of a node is computed in the same pass;
+ * - the descendants of each node are kept as a bitset of topological
+ * positions, built from the exits up when first needed, so whether a node is
+ * an ancestor of another is a single lookup.
+ *
+ * The index covers the nodes given and all their ancestors, following the
+ * parent lists only. It is a snapshot: it must be built again when the
+ * dependencies change, except for the removal of redundant edges, which
+ * does not change the ancestors of any node. The dependencies must not have
+ * a cycle.
+ *
+ * @param <T> the type of the nodes
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ReachabilityIndex<T> {
+
+    /**
+     * Gives the parents of a node
+     *
+     * @param <T> the type of the nodes
+     */
+    public interface Dependencies<T> {
+
+        List<? extends T> getParents(T node);
+    }
+    /**
+     * The nodes in topological order
+     */
+    private final List<T> order;
+    /**
+     * The topological position of each node
+     */
+    private final Map<T, Integer> positions;
+    /**
+     * The positions of the children of each node
+     */
+    private final int[][] children;
+    private final int[] depths;
+    /**
+     * The positions of the descendants of each node, built when first needed
+     */
+    private BitSet[] descendants;
+
+    /**
+     * Builds the index of a list of nodes and their ancestors
+     *
+     * @param nodes the nodes
+     * @param dependencies the parents of the nodes
+     * @throws IllegalStateException if the dependencies have a cycle
+     */
+    public ReachabilityIndex(Collection<? extends T> nodes, Dependencies<T> dependencies) {
+        // the nodes and their ancestors, each with an id in order of discovery
+        Map<T, Integer> ids = new HashMap<>();
+        List<T> nodeList = new ArrayList<>();
+        List<int[]> parentList = new ArrayList<>();
+        for (T node : nodes) {
+            if (!ids.containsKey(node)) {
+                ids.put(node, nodeList.size());
+                nodeList.add(node);
+            }
+        }
+        for (int id = 0; id < nodeList.size(); id++) {
+            List<? extends T> parents = dependencies.getParents(nodeList.get(id));
+            int[] parentIds = new int[parents.size()];
+            for (int k = 0; k < parentIds.length; k++) {
+                T parent = parents.get(k);
+                Integer parentId = ids.get(parent);
+                if (parentId == null) {
+                    parentId = nodeList.size();
+                    ids.put(parent, parentId);
+                    nodeList.add(parent);
+                }
+                parentIds[k] = parentId;
+            }
+            parentList.add(parentIds);
+        }
+
+        // Kahn's algorithm, the roots first in order of discovery
+        int size = nodeList.size();
+        int[] childNums = new int[size];
+        for (int[] parentIds : parentList) {
+            for (int parentId : parentIds) {
+                childNums[parentId]++;
+            }
+        }
+        int[][] childIds = new int[size][];
+        for (int id = 0; id < size; id++) {
+            childIds[id] = new int[childNums[id]];
+            childNums[id] = 0;
+        }
+        int[] unvisitedParents = new int[size];
+        for (int id = 0; id < size; id++) {
+            int[] parentIds = parentList.get(id);
+            unvisitedParents[id] = parentIds.length;
+            for (int parentId : parentIds) {
+                childIds[parentId][childNums[parentId]++] = id;
+            }
+        }
+        int[] sorted = new int[size];
+        int tail = 0;
+        for (int id = 0; id < size; id++) {
+            if (unvisitedParents[id] == 0) {
+                sorted[tail++] = id;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int child : childIds[sorted[head]]) {
+                if (--unvisitedParents[child] == 0) {
+                    sorted[tail++] = child;
+                }
+            }
+        }
+        if (tail < size) {
+            // the nodes left are on a cycle or below one
+            throw new IllegalStateException("The dependencies have a cycle: " + (size - tail)
+                    + " of " + size + " nodes can't be sorted");
+        }
+
+        int[] idPositions = new int[size];
+        order = new ArrayList<>(size);
+        positions = new HashMap<>(size * 2);
+        for (int position = 0; position < size; position++) {
+            int id = sorted[position];
+            idPositions[id] = position;
+            order.add(nodeList.get(id));
+            positions.put(nodeList.get(id), position);
+        }
+        children = new int[size][];
+        depths = new int[size];
+        for (int position = 0; position < size; position++) {
+            int id = sorted[position];
+            int depth = 0;
+            for (int parentId : parentList.get(id)) {
+                depth = Math.max(depth, depths[idPositions[parentId]]);
+            }
+            depths[position] = depth + 1;
+            int[] childPositions = childIds[id];
+            for (int k = 0; k < childPositions.length; k++) {
+                childPositions[k] = idPositions[childPositions[k]];
+            }
+            children[position] = childPositions;
+        }
+    }
+
+    /**
+     * Gets the nodes in topological order: a node comes after all its parents
+     *
+     * @return the nodes
+     */
+    public List<T> getTopologicalOrder() {
+        return Collections.unmodifiableList(order);
+    }
+
+    /**
+     * Gets the position of a node in the topological order
+     *
+     * @param node the node
+     * @return the position, or -1 if the node is not in the index
+     */
+    public int getPosition(T node) {
+        Integer position = positions.get(node);
+        if (position == null) {
+            return -1;
+        }
+        return position;
+    }
+
+    /**
+     * Gets the depth of a node: 1 for a root, otherwise one more than the
+     * deepest parent
+     *
+     * @param node the node
+     * @return the depth, or 0 if the node is not in the index
+     */
+    public int getDepth(T node) {
+        int position = getPosition(node);
+        if (position < 0) {
+            return 0;
+        }
+        return depths[position];
+    }
+
+    /**
+     * Checks whether a node is an ancestor of another one
+     *
+     * @param ancestor the ancestor
+     * @param node the node
+     * @return true if there is a path from ancestor to node
+     */
+    public boolean isAncestor(T ancestor, T node) {
+        int from = getPosition(ancestor);
+        int to = getPosition(node);
+        if (from < 0 || to <= from) {
+            return false;
+        }
+        return getDescendants()[from].get(to);
+    }
+
+    /**
+     * Adds the positions of the descendants of a node to a bitset
+     *
+     * @param node the node
+     * @param set the bitset
+     */
+    public void addDescendants(T node, BitSet set) {
+        int position = getPosition(node);
+        if (position >= 0) {
+            set.or(getDescendants()[position]);
+        }
+    }
+
+    private BitSet[] getDescendants() {
+        if (descendants == null) {
+            descendants = new BitSet[order.size()];
+            for (int position = order.size() - 1; position >= 0; position--) {
+                BitSet set = new BitSet();
+                for (int child : children[position]) {
+                    set.set(child);
+                    set.or(descendants[child]);
+                }
+                descendants[position] = set;
+            }
+        }
+        return descendants;
+    }
+}
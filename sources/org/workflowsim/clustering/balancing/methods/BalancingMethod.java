@@ -116,7 +116,7 @@ public class BalancingMethod {
                 head.getChildList().add(taskSet);
             }
         }
-        tail.getTaskList().clear();
+        tail.clearTasks();
         tail.getChildList().clear();
         tail.getParentList().clear();
     }
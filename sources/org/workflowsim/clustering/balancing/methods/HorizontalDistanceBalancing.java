@@ -20,9 +20,10 @@ package org.workflowsim.clustering.balancing.methods;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.workflowsim.Task;
 import org.workflowsim.clustering.TaskSet;
 
@@ -79,9 +80,11 @@ public class HorizontalDistanceBalancing extends HorizontalImpactBalancing {
             //sortListDecreasing(taskList);
             preprocessing(taskList, jobList);
 
+            ImpactIndex index = new ImpactIndex(jobList, clusters_size);
             for (TaskSet set : taskList) {
                 //sortListIncreasing(jobList);
-                TaskSet job = getCandidateTastSet(jobList, set, clusters_size);
+                TaskSet job = getCandidateTastSet(index, jobList, set);
+                index.remove(job);
                 addTaskSet2TaskSet(set, job);
                 job.addTask(set.getTaskList());
                 job.setImpactFafctor(set.getImpactFactor());
@@ -90,6 +93,7 @@ public class HorizontalDistanceBalancing extends HorizontalImpactBalancing {
                     getTaskMap().put(task, job);//this is enough
                     //impact factor is not updated
                 }
+                index.add(job);
             }
             taskList.clear();//you sure?
         }
@@ -307,8 +311,8 @@ public class HorizontalDistanceBalancing extends HorizontalImpactBalancing {
         if (taskA == null || taskB == null || taskA == taskB) {
             return 0;
         }
-        LinkedList<TaskSet> listA = new LinkedList<>();
-        LinkedList<TaskSet> listB = new LinkedList<>();
+        Set<TaskSet> listA = new LinkedHashSet<>();
+        Set<TaskSet> listB = new LinkedHashSet<>();
         int distance = 0;
         listA.add(taskA);
         listB.add(taskB);
@@ -318,23 +322,15 @@ public class HorizontalDistanceBalancing extends HorizontalImpactBalancing {
         }
         do {
 
-            LinkedList<TaskSet> copyA = (LinkedList) listA.clone();
-            listA.clear();
+            Set<TaskSet> copyA = listA;
+            listA = new LinkedHashSet<>();
             for (TaskSet set : copyA) {
-                for (TaskSet child : set.getChildList()) {
-                    if (!listA.contains(child)) {
-                        listA.add(child);
-                    }
-                }
+                listA.addAll(set.getChildList());
             }
-            LinkedList<TaskSet> copyB = (LinkedList) listB.clone();
-            listB.clear();
+            Set<TaskSet> copyB = listB;
+            listB = new LinkedHashSet<>();
             for (TaskSet set : copyB) {
-                for (TaskSet child : set.getChildList()) {
-                    if (!listB.contains(child)) {
-                        listB.add(child);
-                    }
-                }
+                listB.addAll(set.getChildList());
             }
 
             for (TaskSet set : listA) {
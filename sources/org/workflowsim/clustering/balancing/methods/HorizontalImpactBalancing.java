@@ -20,7 +20,6 @@ package org.workflowsim.clustering.balancing.methods;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.workflowsim.Task;
@@ -73,15 +72,12 @@ public class HorizontalImpactBalancing extends BalancingMethod {
                 clusters_size ++;
             }
             sortListDecreasing(taskList);
+            ImpactIndex index = new ImpactIndex(jobList, clusters_size);
             for (TaskSet set : taskList) {
                 //sortListIncreasing(jobList);
                 //Log.printLine(set.getJobRuntime());
-                TaskSet job = null;
-                try{
-                    job = getCandidateTastSet(jobList, set, clusters_size);
-                }catch(Exception e) {
-                    e.printStackTrace();
-                }
+                TaskSet job = getCandidateTastSet(index, jobList, set);
+                index.remove(job);
                 addTaskSet2TaskSet(set, job);
                 job.addTask(set.getTaskList());
                 job.setImpactFafctor(set.getImpactFactor());
@@ -89,6 +85,7 @@ public class HorizontalImpactBalancing extends BalancingMethod {
                 for (Task task : set.getTaskList()) {
                     getTaskMap().put(task, job);//this is enough
                 }
+                index.add(job);
             }
             taskList.clear();
         } 
@@ -143,80 +140,6 @@ public class HorizontalImpactBalancing extends BalancingMethod {
     
     }
     
-    private List<TaskSet> getNextPotentialTaskSets(List<TaskSet> taskList, 
-                                            TaskSet checkSet, int clusters_size){
-
-        Map<Double, List<TaskSet>> map = new HashMap<>();
-        
-        for (TaskSet set : taskList) {
-                double factor = set.getImpactFactor();
-
-                if(!map.containsKey(factor)){
-                    map.put(factor, new ArrayList<>());
-                }
-                List<TaskSet> list = map.get(factor);
-                if(!list.contains(set)){
-                    list.add(set);
-                }
-        }
-        List<TaskSet> returnList = new ArrayList<> ();
-        List<TaskSet> mapSet = map.get(checkSet.getImpactFactor());
-        if(mapSet!=null && !mapSet.isEmpty()){
-            for(TaskSet set: mapSet){
-                if(set.getTaskList().size() < clusters_size){
-                    returnList.add(set);
-                }
-            }
-        }
-        
-        if(returnList.isEmpty()){
-            List<TaskSet> zeros = map.get(0.0);
-            if(zeros!=null && !zeros.isEmpty())
-            {
-                returnList.addAll(zeros);
-            }
-        }
-        
-        if(returnList.isEmpty()){
-            returnList.clear();//?
-            for (TaskSet set : taskList) {
-                if(set.getTaskList().isEmpty()){
-                    returnList.add(set);
-                    return returnList;
-                }
-            }
-            map.remove(checkSet.getImpactFactor());
-            //no empty available
-            while(returnList.isEmpty() ){
-                
-                List<Double> keys = new ArrayList(map.keySet());
-                double min = Double.MAX_VALUE;
-                
-                double min_i = -1;
-                for(double i: keys){
-                    double distance = Math.abs(i - checkSet.getImpactFactor());
-                    if (distance < min){
-                        min = distance;
-                        min_i = i;
-                    }
-                }
-                if(min_i>=0){
-                    for(TaskSet set: map.get(min_i)){
-                        if(set.getTaskList().size() < clusters_size){
-                            returnList.add(set);
-                        }
-                    }
-                }else{
-                    return null;
-                }
-                map.remove(min_i);
-            }
-        }
-        return returnList;            
-
-    }
-    
-    
     /**
      * Gets the potential candidate taskSets to merge
      * @param taskList
@@ -227,25 +150,18 @@ public class HorizontalImpactBalancing extends BalancingMethod {
     protected TaskSet getCandidateTastSet(List<TaskSet> taskList, 
                                             TaskSet checkSet, 
                                             int clusters_size) {
-        
-        
-        
-        List<TaskSet> potential = null;
-        try{
-            potential=getNextPotentialTaskSets(taskList, checkSet,  clusters_size);
-        }catch (Exception e)
-        {
-            e.printStackTrace();
-        }
-        TaskSet task = null;
-        long max = Long.MIN_VALUE;
-        for(TaskSet set: potential){
-            if(set.getJobRuntime() > max){
-                max = set.getJobRuntime();
-                task = set;
-            }
-        }
+        return getCandidateTastSet(new ImpactIndex(taskList, clusters_size), taskList, checkSet);
+    }
 
+    /**
+     * Gets the candidate taskSet to merge from an index of the jobs
+     * @param index the index of taskList
+     * @param taskList the jobs
+     * @param checkSet the taskSet to merge
+     * @return the candidate, or the first job if every job is full
+     */
+    TaskSet getCandidateTastSet(ImpactIndex index, List<TaskSet> taskList, TaskSet checkSet) {
+        TaskSet task = index.getCandidate(checkSet);
         if (task != null) {
             return task;
         } else {
@@ -17,11 +17,11 @@
  */
 package org.workflowsim.clustering.balancing.methods;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
 import org.workflowsim.Task;
 import org.workflowsim.clustering.TaskSet;
@@ -58,21 +58,20 @@ public class HorizontalRuntimeBalancing extends BalancingMethod {
             Collections.shuffle(taskList, new Random(seed));
 
             if (taskList.size() > getClusterNum()) {
-                List<TaskSet> jobList = new ArrayList<>();
+                PriorityQueue<Load> jobHeap = new PriorityQueue<>(getClusterNum());
                 for (int i = 0; i < getClusterNum(); i++) {
-                    jobList.add(new TaskSet());
+                    jobHeap.add(new Load(new TaskSet(), -i));
                 }
                 sortListDecreasing(taskList);
+                long merges = 0;
                 for (TaskSet set : taskList) {
-                    //MinHeap is required 
-                    sortListIncreasing(jobList);
-                    TaskSet job = (TaskSet) jobList.get(0);
+                    TaskSet job = jobHeap.poll().job;
                     job.addTask(set.getTaskList());
                     //update dependency
                     for (Task task : set.getTaskList()) {
                         getTaskMap().put(task, job);//this is enough
                     }
-
+                    jobHeap.add(new Load(job, ++merges));
                 }
 
                 taskList.clear();//you sure?
@@ -83,18 +82,33 @@ public class HorizontalRuntimeBalancing extends BalancingMethod {
         }
     }
     /**
-     * Sort taskSets based on their runtime
-     * @param taskList taskSets to be sorted
+     * A job in the heap of jobs, with the least runtime first. Among jobs of
+     * the same runtime the job merged last comes first, and then the jobs
+     * never merged in the order they were created, as a stable sort of the
+     * job list by runtime would give.
      */
-    private void sortListIncreasing(List<TaskSet> taskList) {
-        Collections.sort(taskList, new Comparator<TaskSet>() {
-            @Override
-            public int compare(TaskSet t1, TaskSet t2) {
-                //Decreasing order
-                return (int) (t1.getJobRuntime() - t2.getJobRuntime());
-            }
-        });
+    private static class Load implements Comparable<Load> {
 
+        final TaskSet job;
+        /**
+         * The number of merges done when the job was last merged, or minus
+         * the index of a job never merged
+         */
+        final long stamp;
+
+        Load(TaskSet job, long stamp) {
+            this.job = job;
+            this.stamp = stamp;
+        }
+
+        @Override
+        public int compareTo(Load load) {
+            int result = Long.compare(job.getJobRuntime(), load.job.getJobRuntime());
+            if (result != 0) {
+                return result;
+            }
+            return Long.compare(load.stamp, stamp);
+        }
     }
 
     /**
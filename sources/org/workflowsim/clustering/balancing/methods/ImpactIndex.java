@@ -0,0 +1,185 @@
+/*
+ * 
+ *  Copyright 2012-2013 University Of Southern California
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * 
+ */
+package org.workflowsim.clustering.balancing.methods;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.workflowsim.clustering.TaskSet;
+
+/**
+ * ImpactIndex keeps the jobs of a level sorted by impact factor, so the job a
+ * taskSet is merged into is found in O(log k) for k jobs instead of grouping
+ * all the jobs by impact factor for every taskSet. Within an impact factor
+ * the jobs are sorted by decreasing runtime and then in the order of the job
+ * list.
+ *
+ * A job must be removed before it is changed and added back afterwards.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+class ImpactIndex {
+
+    private final List<TaskSet> jobList;
+    /**
+     * The maximum number of tasks in a job
+     */
+    private final int clustersSize;
+    /**
+     * The position of each job in the job list
+     */
+    private final Map<TaskSet, Integer> positions;
+    /**
+     * The impact factor each job is indexed with
+     */
+    private final Map<TaskSet, Double> factors;
+    /**
+     * All the jobs, by impact factor
+     */
+    private final TreeMap<Double, TreeSet<TaskSet>> jobs;
+    /**
+     * The jobs with fewer than clustersSize tasks, by impact factor
+     */
+    private final TreeMap<Double, TreeSet<TaskSet>> openJobs;
+    /**
+     * The positions of the jobs without tasks
+     */
+    private final TreeSet<Integer> emptyJobs;
+    private final Comparator<TaskSet> order;
+
+    /**
+     * Indexes a list of jobs
+     *
+     * @param jobList the jobs
+     * @param clustersSize the maximum number of tasks in a job
+     */
+    public ImpactIndex(List<TaskSet> jobList, int clustersSize) {
+        this.jobList = jobList;
+        this.clustersSize = clustersSize;
+        this.positions = new HashMap<>();
+        this.factors = new HashMap<>();
+        this.jobs = new TreeMap<>();
+        this.openJobs = new TreeMap<>();
+        this.emptyJobs = new TreeSet<>();
+        this.order = new Comparator<TaskSet>() {
+            @Override
+            public int compare(TaskSet t1, TaskSet t2) {
+                int result = Long.compare(t2.getJobRuntime(), t1.getJobRuntime());
+                if (result != 0) {
+                    return result;
+                }
+                return positions.get(t1) - positions.get(t2);
+            }
+        };
+        for (int i = 0; i < jobList.size(); i++) {
+            positions.put(jobList.get(i), i);
+        }
+        for (TaskSet job : jobList) {
+            add(job);
+        }
+    }
+
+    /**
+     * Adds a job, or adds it back after it has changed
+     *
+     * @param job the job
+     */
+    public void add(TaskSet job) {
+        double factor = job.getImpactFactor();
+        factors.put(job, factor);
+        add(jobs, factor, job);
+        if (job.getTaskList().size() < clustersSize) {
+            add(openJobs, factor, job);
+        }
+        if (job.getTaskList().isEmpty()) {
+            emptyJobs.add(positions.get(job));
+        }
+    }
+
+    /**
+     * Removes a job before it is changed
+     *
+     * @param job the job
+     */
+    public void remove(TaskSet job) {
+        Double factor = factors.remove(job);
+        remove(jobs, factor, job);
+        remove(openJobs, factor, job);
+        emptyJobs.remove(positions.get(job));
+    }
+
+    /**
+     * Gets the job a taskSet is merged into, which is the job with the most
+     * runtime among:
+     * <ol>
+     * <li>the jobs with room left and the impact factor of the taskSet,</li>
+     * <li>or else the jobs with no impact factor,</li>
+     * <li>or else the first job without tasks,</li>
+     * <li>or else the jobs with room left and the closest impact factor. On a
+     * tie the lower impact factor is taken.</li>
+     * </ol>
+     *
+     * @param checkSet the taskSet to merge
+     * @return the job, or null if every job is full
+     */
+    public TaskSet getCandidate(TaskSet checkSet) {
+        double factor = checkSet.getImpactFactor();
+        TreeSet<TaskSet> candidates = openJobs.get(factor);
+        if (candidates != null) {
+            return candidates.first();
+        }
+        candidates = jobs.get(0.0);
+        if (candidates != null) {
+            return candidates.first();
+        }
+        if (!emptyJobs.isEmpty()) {
+            return jobList.get(emptyJobs.first());
+        }
+        Double lower = openJobs.lowerKey(factor);
+        Double higher = openJobs.higherKey(factor);
+        Double closest;
+        if (higher == null || (lower != null && factor - lower <= higher - factor)) {
+            closest = lower;
+        } else {
+            closest = higher;
+        }
+        if (closest == null || closest < 0) {
+            return null;
+        }
+        return openJobs.get(closest).first();
+    }
+
+    private void add(TreeMap<Double, TreeSet<TaskSet>> map, double factor, TaskSet job) {
+        TreeSet<TaskSet> set = map.get(factor);
+        if (set == null) {
+            set = new TreeSet<>(order);
+            map.put(factor, set);
+        }
+        set.add(job);
+    }
+
+    private void remove(TreeMap<Double, TreeSet<TaskSet>> map, Double factor, TaskSet job) {
+        TreeSet<TaskSet> set = map.get(factor);
+        if (set != null && set.remove(job) && set.isEmpty()) {
+            map.remove(factor);
+        }
+    }
+}
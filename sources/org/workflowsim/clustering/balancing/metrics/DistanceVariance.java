@@ -17,8 +17,9 @@
  */
 package org.workflowsim.clustering.balancing.metrics;
 
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import org.workflowsim.clustering.TaskSet;
 
 /**
@@ -77,8 +78,8 @@ public class DistanceVariance implements BalancingMetric {
         if (taskA == null || taskB == null || taskA == taskB) {
             return 0;
         }
-        LinkedList<TaskSet> listA = new LinkedList<>();
-        LinkedList<TaskSet> listB = new LinkedList<>();
+        Set<TaskSet> listA = new LinkedHashSet<>();
+        Set<TaskSet> listB = new LinkedHashSet<>();
         int distance = 0;
         listA.add(taskA);
         listB.add(taskB);
@@ -88,23 +89,15 @@ public class DistanceVariance implements BalancingMetric {
         }
         do {
 
-            LinkedList<TaskSet> copyA = (LinkedList) listA.clone();
-            listA.clear();
+            Set<TaskSet> copyA = listA;
+            listA = new LinkedHashSet<>();
             for (TaskSet set : copyA) {
-                for (TaskSet child : set.getChildList()) {
-                    if (!listA.contains(child)) {
-                        listA.add(child);
-                    }
-                }
+                listA.addAll(set.getChildList());
             }
-            LinkedList<TaskSet> copyB = (LinkedList) listB.clone();
-            listB.clear();
+            Set<TaskSet> copyB = listB;
+            listB = new LinkedHashSet<>();
             for (TaskSet set : copyB) {
-                for (TaskSet child : set.getChildList()) {
-                    if (!listB.contains(child)) {
-                        listB.add(child);
-                    }
-                }
+                listB.addAll(set.getChildList());
             }
 
             for (TaskSet set : listA) {
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.experiment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HarddriveStorage;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.workflowsim.AnalyticCloudletScheduler;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * ExperimentRunner runs the scenarios of an experiment concurrently. Each
+ * scenario is simulated from start to end by a single task of the executor,
+ * in its own SimulationContext, so the CloudSim kernel and the WorkflowSim
+ * parameters of one run are never seen by another. The results are written to
+ * a ResultSink as the runs complete, by the thread that called run().
+ *
+ * Any executor can be used: the default one is a fixed thread pool with one
+ * thread per processor, and a ForkJoinPool or an executor creating a virtual
+ * thread per task can be passed instead.
+ *
+ * The datacenter and the vms of a run are those of WorkflowSimBasicExample1.
+ * Override createDatacenter and createVms to simulate other resources.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ExperimentRunner {
+
+    /**
+     * The result of a run and the position of its scenario
+     */
+    private static final class IndexedResult {
+
+        final int index;
+        final ScenarioResult result;
+
+        IndexedResult(int index, ScenarioResult result) {
+            this.index = index;
+            this.result = result;
+        }
+    }
+    /**
+     * The executor running the scenarios
+     */
+    private final ExecutorService executor;
+    /**
+     * Whether the executor is shut down with this runner
+     */
+    private final boolean ownExecutor;
+    /**
+     * Whether the runs print their log
+     */
+    private boolean logEnabled = false;
+
+    /**
+     * Creates a runner with a fixed thread pool of one thread per processor
+     */
+    public ExperimentRunner() {
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * Creates a runner using the given executor. The executor is not shut down
+     * by the runner.
+     *
+     * @param executor the executor running the scenarios
+     */
+    public ExperimentRunner(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private ExperimentRunner(ExecutorService executor, boolean ownExecutor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor must not be null");
+        }
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+    }
+
+    /**
+     * Sets whether the runs print their log. The log is disabled by default,
+     * since the lines of concurrent runs would be mixed.
+     *
+     * @param enabled whether the runs print their log
+     */
+    public void setLogEnabled(boolean enabled) {
+        logEnabled = enabled;
+    }
+
+    /**
+     * Runs the scenarios and writes their results to the sink as they
+     * complete. A scenario stopped by an error gives a result holding the
+     * error and does not stop the others.
+     *
+     * @param scenarios the scenarios
+     * @param sink the sink, may be null
+     * @return the results, in the order of the scenarios
+     * @throws IOException if the sink fails
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    public List<ScenarioResult> run(List<Scenario> scenarios, ResultSink sink)
+            throws IOException, InterruptedException {
+        CompletionService<IndexedResult> service = new ExecutorCompletionService<>(executor);
+        List<Scenario> pending = new ArrayList<>(scenarios);
+        for (int i = 0; i < pending.size(); i++) {
+            final int index = i;
+            final Scenario scenario = pending.get(i);
+            service.submit(new Callable<IndexedResult>() {
+                @Override
+                public IndexedResult call() {
+                    return new IndexedResult(index, runScenario(scenario));
+                }
+            });
+        }
+        ScenarioResult[] results = new ScenarioResult[pending.size()];
+        for (int i = 0; i < results.length; i++) {
+            IndexedResult run;
+            try {
+                run = service.take().get();
+            } catch (ExecutionException e) {
+                // runScenario catches its own errors, so this is a bug
+                throw new IllegalStateException(e.getCause());
+            }
+            results[run.index] = run.result;
+            if (sink != null) {
+                sink.write(run.result);
+            }
+        }
+        List<ScenarioResult> list = new ArrayList<>(results.length);
+        for (ScenarioResult result : results) {
+            list.add(result);
+        }
+        return list;
+    }
+
+    /**
+     * Shuts down the executor if it was created by this runner
+     */
+    public void shutdown() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs one scenario in a new SimulationContext of the current thread
+     *
+     * @param scenario the scenario
+     * @return the result
+     */
+    public ScenarioResult runScenario(Scenario scenario) {
+        long start = System.currentTimeMillis();
+        SimulationContext previous = SimulationContext.setCurrent(new SimulationContext());
+        try {
+            Log.setDisabled(!logEnabled);
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+            Parameters.init(scenario.getVmNum(), scenario.getDaxPath(), null, null, op,
+                    scenario.getClusteringParameters(), scenario.getSchedulingAlgorithm(),
+                    scenario.getPlanningAlgorithm(), null, 0);
+            ReplicaCatalog.init(scenario.getFileSystem());
+            scenario.getFailureSetting().apply(scenario.getVmNum());
+            FailureMonitor.init();
+            FailureGenerator.init();
+
+            CloudSim.init(1, Calendar.getInstance(), false);
+            WorkflowDatacenter datacenter = createDatacenter("Datacenter_0");
+            WorkflowPlanner planner = new WorkflowPlanner("planner_0", 1);
+            WorkflowEngine engine = planner.getWorkflowEngine();
+            engine.submitVmList(createVms(engine.getSchedulerId(0), scenario.getVmNum()), 0);
+            engine.bindSchedulerDatacenter(datacenter.getId(), 0);
+            CloudSim.startSimulation();
+            List<Job> jobs = engine.getJobsReceivedList();
+            CloudSim.stopSimulation();
+
+            double makespan = 0.0;
+            double cost = 0.0;
+            int failedJobs = 0;
+            int failedTasks = 0;
+            for (Job job : jobs) {
+                makespan = Math.max(makespan, job.getFinishTime());
+                cost += job.getProcessingCost();
+                if (job.getCloudletStatus() == Cloudlet.FAILED) {
+                    failedJobs++;
+                    for (Task task : job.getTaskList()) {
+                        if (task.getCloudletStatus() == Cloudlet.FAILED) {
+                            failedTasks++;
+                        }
+                    }
+                }
+            }
+            return new ScenarioResult(scenario, makespan, cost, jobs.size(), failedJobs,
+                    failedTasks, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            return new ScenarioResult(scenario, System.currentTimeMillis() - start, e);
+        } finally {
+            SimulationContext.setCurrent(previous);
+        }
+    }
+
+    /**
+     * Creates the datacenter of a run: 20 hosts with two 2000 MIPS cores each
+     * and a storage of 15 MB/s.
+     *
+     * @param name the name of the datacenter
+     * @return the datacenter
+     * @throws Exception if the datacenter can't be created
+     */
+    protected WorkflowDatacenter createDatacenter(String name) throws Exception {
+        List<Host> hostList = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            List<Pe> peList = new ArrayList<>();
+            int mips = 2000;
+            peList.add(new Pe(0, new PeProvisionerSimple(mips)));
+            peList.add(new Pe(1, new PeProvisionerSimple(mips)));
+            int ram = 2048; //host memory (MB)
+            long storage = 1000000; //host storage
+            int bw = 10000;
+            hostList.add(new Host(0, new RamProvisionerSimple(ram), new BwProvisionerSimple(bw),
+                    storage, peList, new VmSchedulerTimeShared(peList)));
+        }
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                "x86", "Linux", "Xen", hostList, 10.0, 3.0, 0.05, 0.1, 0.1);
+        LinkedList<Storage> storageList = new LinkedList<>();
+        HarddriveStorage storage = new HarddriveStorage(name, 1e12);
+        storage.setMaxTransferRate(15);
+        storageList.add(storage);
+        return new WorkflowDatacenter(name, characteristics,
+                new VmAllocationPolicySimple(hostList), storageList, 0);
+    }
+
+    /**
+     * Creates the vms of a run: single core 1000 MIPS vms with an
+     * AnalyticCloudletScheduler.
+     *
+     * @param userId the id of the scheduler controlling the vms
+     * @param vms the number of vms
+     * @return the vms
+     */
+    protected List<CondorVM> createVms(int userId, int vms) {
+        List<CondorVM> list = new LinkedList<>();
+        for (int i = 0; i < vms; i++) {
+            list.add(new CondorVM(i, userId, 1000, 1, 512, 1000, 10000, "Xen",
+                    new AnalyticCloudletScheduler()));
+        }
+        return list;
+    }
+}
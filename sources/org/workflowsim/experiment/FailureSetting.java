@@ -0,0 +1,184 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.experiment;
+
+import org.workflowsim.failure.FailureParameters;
+import org.workflowsim.failure.FailureParameters.FTCFailure;
+import org.workflowsim.failure.FailureParameters.FTCMonitor;
+import org.workflowsim.failure.FailureParameters.FTCluteringAlgorithm;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
+
+/**
+ * FailureSetting describes the failure parameters of a scenario. Unlike the
+ * DistributionGenerator objects passed to FailureParameters, which draw and
+ * extend their samples while a simulation runs, a FailureSetting is immutable
+ * and can be shared by scenarios running concurrently: each run creates its
+ * own generators from it. Every vm and task depth uses the same distribution,
+ * each with its own generator.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class FailureSetting {
+
+    /**
+     * No failures at all
+     */
+    public static final FailureSetting NONE = new FailureSetting(
+            FTCFailure.FAILURE_NONE, FTCMonitor.MONITOR_NONE,
+            FTCluteringAlgorithm.FTCLUSTERING_NOOP, DistributionFamily.WEIBULL, 0, 0);
+    /**
+     * The number of task depths with a generator. Most workflows we use have
+     * a maximum of 11 levels
+     */
+    private static final int MAX_LEVEL = 11;
+    /**
+     * Failure generation mode
+     */
+    private final FTCFailure failureMode;
+    /**
+     * Failure monitor mode
+     */
+    private final FTCMonitor monitorMode;
+    /**
+     * Fault tolerant clustering algorithm
+     */
+    private final FTCluteringAlgorithm clusteringAlgorithm;
+    /**
+     * The distribution of the intervals between failures
+     */
+    private final DistributionFamily distribution;
+    /**
+     * The scale of the distribution
+     */
+    private final double scale;
+    /**
+     * The shape of the distribution
+     */
+    private final double shape;
+
+    /**
+     * Creates a failure setting.
+     *
+     * @param failureMode failure generation mode
+     * @param monitorMode failure monitor mode
+     * @param clusteringAlgorithm fault tolerant clustering algorithm
+     * @param distribution the distribution of the intervals between failures
+     * @param scale the scale of the distribution
+     * @param shape the shape of the distribution
+     */
+    public FailureSetting(FTCFailure failureMode, FTCMonitor monitorMode,
+            FTCluteringAlgorithm clusteringAlgorithm, DistributionFamily distribution,
+            double scale, double shape) {
+        if (failureMode == null || monitorMode == null || clusteringAlgorithm == null
+                || distribution == null) {
+            throw new IllegalArgumentException("The failure modes and distribution must not be null");
+        }
+        if (failureMode != FTCFailure.FAILURE_NONE && (scale <= 0 || shape <= 0)) {
+            throw new IllegalArgumentException("The failure distribution needs a positive scale and shape");
+        }
+        this.failureMode = failureMode;
+        this.monitorMode = monitorMode;
+        this.clusteringAlgorithm = clusteringAlgorithm;
+        this.distribution = distribution;
+        this.scale = scale;
+        this.shape = shape;
+    }
+
+    /**
+     * Initializes FailureParameters of the current simulation context with
+     * this setting
+     *
+     * @param vmNum the number of vms of the simulation
+     */
+    public void apply(int vmNum) {
+        DistributionGenerator[][] generators = null;
+        if (failureMode != FTCFailure.FAILURE_NONE) {
+            boolean perVm = failureMode == FTCFailure.FAILURE_VM || failureMode == FTCFailure.FAILURE_VM_JOB;
+            boolean perLevel = failureMode == FTCFailure.FAILURE_JOB || failureMode == FTCFailure.FAILURE_VM_JOB;
+            generators = new DistributionGenerator[perVm ? vmNum : 1][perLevel ? MAX_LEVEL : 1];
+            for (DistributionGenerator[] row : generators) {
+                for (int level = 0; level < row.length; level++) {
+                    row[level] = new DistributionGenerator(distribution, scale, shape);
+                }
+            }
+        }
+        FailureParameters.init(clusteringAlgorithm, monitorMode, failureMode, generators, distribution);
+    }
+
+    /**
+     * Gets the failure generation mode
+     *
+     * @return the failure generation mode
+     */
+    public FTCFailure getFailureMode() {
+        return failureMode;
+    }
+
+    /**
+     * Gets the failure monitor mode
+     *
+     * @return the failure monitor mode
+     */
+    public FTCMonitor getMonitorMode() {
+        return monitorMode;
+    }
+
+    /**
+     * Gets the fault tolerant clustering algorithm
+     *
+     * @return the fault tolerant clustering algorithm
+     */
+    public FTCluteringAlgorithm getClusteringAlgorithm() {
+        return clusteringAlgorithm;
+    }
+
+    /**
+     * Gets the distribution of the intervals between failures
+     *
+     * @return the distribution
+     */
+    public DistributionFamily getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * Gets the scale of the distribution
+     *
+     * @return the scale
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Gets the shape of the distribution
+     *
+     * @return the shape
+     */
+    public double getShape() {
+        return shape;
+    }
+
+    @Override
+    public String toString() {
+        if (failureMode == FTCFailure.FAILURE_NONE) {
+            return failureMode.toString();
+        }
+        return failureMode + "/" + monitorMode + "/" + clusteringAlgorithm + "/"
+                + distribution + "(" + scale + "," + shape + ")";
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.experiment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * ResultSink writes the results of an experiment one row at a time, as the
+ * runs complete. The rows are written by the thread that collects the
+ * results, so implementations need not be thread safe.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @see ExperimentRunner
+ */
+public abstract class ResultSink implements Closeable {
+
+    /**
+     * The columns of a row
+     */
+    protected static final String[] COLUMNS = {"scenario", "dax", "scheduling", "planning",
+        "clustering", "vms", "failure", "makespan", "cost", "jobs", "failed_jobs",
+        "failed_tasks", "wall_time_ms", "error"};
+    protected final Writer writer;
+
+    /**
+     * Creates a sink writing to the given writer
+     *
+     * @param writer the writer, closed with the sink
+     */
+    protected ResultSink(Writer writer) {
+        if (writer == null) {
+            throw new IllegalArgumentException("The writer must not be null");
+        }
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the row of a result and flushes it
+     *
+     * @param result the result
+     * @throws IOException if the row can't be written
+     */
+    public abstract void write(ScenarioResult result) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Gets the values of a row, in the order of COLUMNS. Numbers are kept as
+     * numbers and the error is null when the run completed.
+     *
+     * @param result the result
+     * @return the values
+     */
+    protected static Object[] values(ScenarioResult result) {
+        Scenario scenario = result.getScenario();
+        return new Object[]{scenario.getId(), scenario.getDaxPath(),
+            scenario.getSchedulingAlgorithm(), scenario.getPlanningAlgorithm(),
+            scenario.getClusteringParameters().getClusteringMethod(), scenario.getVmNum(),
+            scenario.getFailureSetting(), result.getMakespan(), result.getCost(),
+            result.getJobs(), result.getFailedJobs(), result.getFailedTasks(),
+            result.getWallTime(), result.getError()};
+    }
+
+    /**
+     * Formats a number the same way whatever the default locale
+     *
+     * @param value the number
+     * @return the formatted number
+     */
+    protected static String format(Number value) {
+        if (value instanceof Double) {
+            return String.format(Locale.ROOT, "%.4f", value);
+        }
+        return value.toString();
+    }
+
+    /**
+     * A sink writing comma-separated values, with a header line
+     */
+    public static class Csv extends ResultSink {
+
+        private boolean headerWritten = false;
+
+        public Csv(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(ScenarioResult result) throws IOException {
+            StringBuilder row = new StringBuilder();
+            if (!headerWritten) {
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    row.append(i == 0 ? "" : ",").append(COLUMNS[i]);
+                }
+                row.append('\n');
+                headerWritten = true;
+            }
+            Object[] values = values(result);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    row.append(',');
+                }
+                Object value = values[i];
+                if (value instanceof Number) {
+                    row.append(format((Number) value));
+                } else if (value != null) {
+                    String text = value.toString();
+                    if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0) {
+                        text = '"' + text.replace("\"", "\"\"") + '"';
+                    }
+                    row.append(text);
+                }
+            }
+            row.append('\n');
+            writer.write(row.toString());
+            writer.flush();
+        }
+    }
+
+    /**
+     * A sink writing one JSON object per line
+     */
+    public static class JsonLines extends ResultSink {
+
+        public JsonLines(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(ScenarioResult result) throws IOException {
+            StringBuilder row = new StringBuilder("{");
+            Object[] values = values(result);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    row.append(',');
+                }
+                row.append('"').append(COLUMNS[i]).append("\":");
+                Object value = values[i];
+                if (value == null) {
+                    row.append("null");
+                } else if (value instanceof Number) {
+                    row.append(format((Number) value));
+                } else {
+                    appendString(row, value.toString());
+                }
+            }
+            row.append("}\n");
+            writer.write(row.toString());
+            writer.flush();
+        }
+
+        private static void appendString(StringBuilder row, String text) {
+            row.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':
+                        row.append("\\\"");
+                        break;
+                    case '\\':
+                        row.append("\\\\");
+                        break;
+                    case '\n':
+                        row.append("\\n");
+                        break;
+                    case '\r':
+                        row.append("\\r");
+                        break;
+                    case '\t':
+                        row.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            row.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            row.append(c);
+                        }
+                }
+            }
+            row.append('"');
+        }
+    }
+}
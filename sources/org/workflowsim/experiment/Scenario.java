@@ -0,0 +1,177 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.experiment;
+
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.Parameters.PlanningAlgorithm;
+import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
+import org.workflowsim.utils.ReplicaCatalog.FileSystem;
+
+/**
+ * A Scenario is one configuration of an experiment: a workflow, the
+ * algorithms used to plan, schedule and cluster it, the number of vms and the
+ * failure parameters. Scenarios are immutable.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @see ScenarioGrid
+ * @see ExperimentRunner
+ */
+public class Scenario {
+
+    /**
+     * The index of the scenario in its experiment
+     */
+    private final int id;
+    /**
+     * The physical path to DAX file
+     */
+    private final String daxPath;
+    /**
+     * Scheduling mode
+     */
+    private final SchedulingAlgorithm schedulingAlgorithm;
+    /**
+     * Planning mode
+     */
+    private final PlanningAlgorithm planningAlgorithm;
+    /**
+     * Clustering parameters
+     */
+    private final ClusteringParameters clusteringParameters;
+    /**
+     * Number of vms
+     */
+    private final int vmNum;
+    /**
+     * Failure parameters
+     */
+    private final FailureSetting failureSetting;
+    /**
+     * The file system
+     */
+    private final FileSystem fileSystem;
+
+    /**
+     * Creates a scenario
+     *
+     * @param id the index of the scenario in its experiment
+     * @param daxPath the DAX path
+     * @param schedulingAlgorithm scheduling mode
+     * @param planningAlgorithm planning mode
+     * @param clusteringParameters clustering parameters
+     * @param vmNum the number of vms
+     * @param failureSetting failure parameters
+     * @param fileSystem the file system
+     */
+    public Scenario(int id, String daxPath, SchedulingAlgorithm schedulingAlgorithm,
+            PlanningAlgorithm planningAlgorithm, ClusteringParameters clusteringParameters,
+            int vmNum, FailureSetting failureSetting, FileSystem fileSystem) {
+        if (daxPath == null || schedulingAlgorithm == null || planningAlgorithm == null
+                || clusteringParameters == null || failureSetting == null || fileSystem == null) {
+            throw new IllegalArgumentException("The parameters of a scenario must not be null");
+        }
+        if (vmNum <= 0) {
+            throw new IllegalArgumentException("A scenario needs at least one vm");
+        }
+        this.id = id;
+        this.daxPath = daxPath;
+        this.schedulingAlgorithm = schedulingAlgorithm;
+        this.planningAlgorithm = planningAlgorithm;
+        this.clusteringParameters = clusteringParameters;
+        this.vmNum = vmNum;
+        this.failureSetting = failureSetting;
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Gets the index of the scenario in its experiment
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the DAX path
+     *
+     * @return the DAX path
+     */
+    public String getDaxPath() {
+        return daxPath;
+    }
+
+    /**
+     * Gets the scheduling method
+     *
+     * @return the scheduling method
+     */
+    public SchedulingAlgorithm getSchedulingAlgorithm() {
+        return schedulingAlgorithm;
+    }
+
+    /**
+     * Gets the planning method
+     *
+     * @return the planning method
+     */
+    public PlanningAlgorithm getPlanningAlgorithm() {
+        return planningAlgorithm;
+    }
+
+    /**
+     * Gets the clustering parameters
+     *
+     * @return the clustering parameters
+     */
+    public ClusteringParameters getClusteringParameters() {
+        return clusteringParameters;
+    }
+
+    /**
+     * Gets the vm number
+     *
+     * @return the vm number
+     */
+    public int getVmNum() {
+        return vmNum;
+    }
+
+    /**
+     * Gets the failure parameters
+     *
+     * @return the failure parameters
+     */
+    public FailureSetting getFailureSetting() {
+        return failureSetting;
+    }
+
+    /**
+     * Gets the file system
+     *
+     * @return the file system
+     */
+    public FileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    @Override
+    public String toString() {
+        return "Scenario #" + id + " [" + daxPath + ", " + schedulingAlgorithm + ", "
+                + planningAlgorithm + ", " + clusteringParameters.getClusteringMethod() + ", "
+                + vmNum + " vms, " + failureSetting + "]";
+    }
+}
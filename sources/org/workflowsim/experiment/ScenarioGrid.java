@@ -0,0 +1,194 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.experiment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.ClusteringParameters.ClusteringMethod;
+import org.workflowsim.utils.Parameters.PlanningAlgorithm;
+import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
+import org.workflowsim.utils.ReplicaCatalog.FileSystem;
+
+/**
+ * ScenarioGrid builds the scenarios of an experiment as the cross product of
+ * the values given for each parameter. A parameter that is not set keeps the
+ * default used by the examples: MINMIN scheduling, no planning, no
+ * clustering, 20 vms, no failures and a shared file system.
+ *
+ * <pre>
+ * List&lt;Scenario&gt; scenarios = new ScenarioGrid()
+ *         .daxPaths("config/dax/Montage_100.xml", "config/dax/CyberShake_100.xml")
+ *         .schedulingAlgorithms(SchedulingAlgorithm.MINMIN, SchedulingAlgorithm.MAXMIN)
+ *         .vmNums(10, 20, 40)
+ *         .getScenarios();
+ * </pre>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ScenarioGrid {
+
+    private List<String> daxPaths = new ArrayList<>();
+    private List<SchedulingAlgorithm> schedulingAlgorithms = Arrays.asList(SchedulingAlgorithm.MINMIN);
+    private List<PlanningAlgorithm> planningAlgorithms = Arrays.asList(PlanningAlgorithm.INVALID);
+    private List<ClusteringMethod> clusteringMethods = Arrays.asList(ClusteringMethod.NONE);
+    private List<Integer> vmNums = Arrays.asList(20);
+    private List<FailureSetting> failureSettings = Arrays.asList(FailureSetting.NONE);
+    private FileSystem fileSystem = FileSystem.SHARED;
+    /**
+     * clusters.num, used by the clustering methods that need it
+     */
+    private int clustersNum = 0;
+    /**
+     * clusters.size, used by the clustering methods that need it
+     */
+    private int clustersSize = 0;
+
+    /**
+     * Sets the DAX paths
+     *
+     * @param paths the DAX paths
+     * @return this grid
+     */
+    public ScenarioGrid daxPaths(String... paths) {
+        daxPaths = values(paths);
+        return this;
+    }
+
+    /**
+     * Sets the scheduling methods
+     *
+     * @param algorithms the scheduling methods
+     * @return this grid
+     */
+    public ScenarioGrid schedulingAlgorithms(SchedulingAlgorithm... algorithms) {
+        schedulingAlgorithms = values(algorithms);
+        return this;
+    }
+
+    /**
+     * Sets the planning methods
+     *
+     * @param algorithms the planning methods
+     * @return this grid
+     */
+    public ScenarioGrid planningAlgorithms(PlanningAlgorithm... algorithms) {
+        planningAlgorithms = values(algorithms);
+        return this;
+    }
+
+    /**
+     * Sets the clustering methods
+     *
+     * @param methods the clustering methods
+     * @return this grid
+     */
+    public ScenarioGrid clusteringMethods(ClusteringMethod... methods) {
+        clusteringMethods = values(methods);
+        return this;
+    }
+
+    /**
+     * Sets clusters.num and clusters.size of the clustering methods
+     *
+     * @param num clusters.num
+     * @param size clusters.size
+     * @return this grid
+     */
+    public ScenarioGrid clusters(int num, int size) {
+        clustersNum = num;
+        clustersSize = size;
+        return this;
+    }
+
+    /**
+     * Sets the numbers of vms
+     *
+     * @param nums the numbers of vms
+     * @return this grid
+     */
+    public ScenarioGrid vmNums(Integer... nums) {
+        vmNums = values(nums);
+        return this;
+    }
+
+    /**
+     * Sets the failure parameters
+     *
+     * @param settings the failure parameters
+     * @return this grid
+     */
+    public ScenarioGrid failureSettings(FailureSetting... settings) {
+        failureSettings = values(settings);
+        return this;
+    }
+
+    /**
+     * Sets the file system of all the scenarios
+     *
+     * @param fs the file system
+     * @return this grid
+     */
+    public ScenarioGrid fileSystem(FileSystem fs) {
+        if (fs == null) {
+            throw new IllegalArgumentException("The file system must not be null");
+        }
+        fileSystem = fs;
+        return this;
+    }
+
+    /**
+     * Gets the scenarios of the grid. The DAX path varies slowest and the
+     * failure parameters fastest.
+     *
+     * @return the scenarios, numbered from 0
+     */
+    public List<Scenario> getScenarios() {
+        if (daxPaths.isEmpty()) {
+            throw new IllegalArgumentException("At least one DAX path is needed");
+        }
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String dax : daxPaths) {
+            for (SchedulingAlgorithm scheduler : schedulingAlgorithms) {
+                for (PlanningAlgorithm planner : planningAlgorithms) {
+                    for (ClusteringMethod method : clusteringMethods) {
+                        ClusteringParameters cp = new ClusteringParameters(clustersNum, clustersSize, method, null);
+                        for (int vmNum : vmNums) {
+                            for (FailureSetting failure : failureSettings) {
+                                scenarios.add(new Scenario(scenarios.size(), dax, scheduler, planner,
+                                        cp, vmNum, failure, fileSystem));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    private static <T> List<T> values(T[] values) {
+        if (values == null || values.length == 0) {
+            throw new IllegalArgumentException("At least one value is needed");
+        }
+        for (T value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("The values must not be null");
+            }
+        }
+        return new ArrayList<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.experiment;
+
+/**
+ * ScenarioResult holds the outcome of running one scenario.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ScenarioResult {
+
+    private final Scenario scenario;
+    /**
+     * The finish time of the last job
+     */
+    private final double makespan;
+    /**
+     * The sum of the processing cost of the jobs
+     */
+    private final double cost;
+    /**
+     * The number of jobs returned to the engine, including failed attempts
+     */
+    private final int jobs;
+    /**
+     * The number of failed job attempts
+     */
+    private final int failedJobs;
+    /**
+     * The number of failed task attempts
+     */
+    private final int failedTasks;
+    /**
+     * The wall clock time of the run in milliseconds
+     */
+    private final long wallTime;
+    /**
+     * The error that stopped the run, or null
+     */
+    private final String error;
+
+    /**
+     * Creates the result of a run that completed
+     *
+     * @param scenario the scenario
+     * @param makespan the finish time of the last job
+     * @param cost the sum of the processing cost of the jobs
+     * @param jobs the number of jobs returned
+     * @param failedJobs the number of failed job attempts
+     * @param failedTasks the number of failed task attempts
+     * @param wallTime the wall clock time of the run in milliseconds
+     */
+    public ScenarioResult(Scenario scenario, double makespan, double cost, int jobs,
+            int failedJobs, int failedTasks, long wallTime) {
+        this(scenario, makespan, cost, jobs, failedJobs, failedTasks, wallTime, null);
+    }
+
+    /**
+     * Creates the result of a run that was stopped by an error
+     *
+     * @param scenario the scenario
+     * @param wallTime the wall clock time of the run in milliseconds
+     * @param error the error
+     */
+    public ScenarioResult(Scenario scenario, long wallTime, Throwable error) {
+        this(scenario, 0, 0, 0, 0, 0, wallTime, String.valueOf(error));
+    }
+
+    private ScenarioResult(Scenario scenario, double makespan, double cost, int jobs,
+            int failedJobs, int failedTasks, long wallTime, String error) {
+        this.scenario = scenario;
+        this.makespan = makespan;
+        this.cost = cost;
+        this.jobs = jobs;
+        this.failedJobs = failedJobs;
+        this.failedTasks = failedTasks;
+        this.wallTime = wallTime;
+        this.error = error;
+    }
+
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    public double getMakespan() {
+        return makespan;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public int getJobs() {
+        return jobs;
+    }
+
+    public int getFailedJobs() {
+        return failedJobs;
+    }
+
+    public int getFailedTasks() {
+        return failedTasks;
+    }
+
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Gets the error that stopped the run
+     *
+     * @return the error, or null if the run completed
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Checks whether the run completed
+     *
+     * @return true if the run was not stopped by an error
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -20,6 +20,7 @@ import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.apache.commons.math3.distribution.WeibullDistribution;
@@ -40,8 +41,36 @@ public class FailureGenerator {
      * is too high for this workflow
      */
     private static final int maxFailureSizeExtension = 50;
-    private static int failureSizeExtension = 0;
     private static final boolean hasChangeTime = false;
+
+    /**
+     * The failure generator state of each simulation context
+     */
+    private static final SimulationContext.Key<State> STATE = new SimulationContext.Key<State>() {
+
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
+    /**
+     * The failure generator state of a simulation context
+     */
+    private static class State {
+
+        private int failureSizeExtension = 0;
+    }
+
+    /**
+     * Gets the failure generator state of the current simulation context
+     *
+     * @return the state
+     */
+    private static State state() {
+        return SimulationContext.current().get(STATE);
+    }
+
     /**
      *
      * @param alpha
@@ -84,6 +113,7 @@ public class FailureGenerator {
     protected static boolean checkFailureStatus(Task task, int vmId) throws Exception {
 
 
+        State state = state();
         DistributionGenerator generator;
         switch (FailureParameters.getFailureGeneratorMode()) {
             /**
@@ -123,8 +153,8 @@ public class FailureGenerator {
         while (samples[samples.length - 1] < start) {
             generator.extendSamples();
             samples = generator.getCumulativeSamples();
-            failureSizeExtension++;
-            if (failureSizeExtension >= maxFailureSizeExtension) {
+            state.failureSizeExtension++;
+            if (state.failureSizeExtension >= maxFailureSizeExtension) {
                 throw new Exception("Error rate is too high such that the simulator terminates");
 
             }
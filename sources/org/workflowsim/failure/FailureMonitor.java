@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * FailureMonitor collects failure information
@@ -31,21 +32,47 @@ import org.cloudbus.cloudsim.Log;
 public class FailureMonitor {
 
     /**
-     * VM ID to a Failure Record. *
+     * The failure records of each simulation context
      */
-    protected static Map<Integer, List<FailureRecord>> vm2record;
-    /**
-     * Type to a Failure Record. *
-     */
-    protected static Map<Integer, List<FailureRecord>> type2record;
+    private static final SimulationContext.Key<State> STATE = new SimulationContext.Key<State>() {
+
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
     /**
-     * JobID to a Failure Record. *
+     * The failure records of a simulation context
      */
-    protected static Map<Integer, FailureRecord> jobid2record;
+    private static class State {
+
+        /**
+         * VM ID to a Failure Record. *
+         */
+        private Map<Integer, List<FailureRecord>> vm2record;
+        /**
+         * Type to a Failure Record. *
+         */
+        private Map<Integer, List<FailureRecord>> type2record;
+        /**
+         * JobID to a Failure Record. *
+         */
+        private Map<Integer, FailureRecord> jobid2record;
+        /**
+         * All the record list.
+         */
+        private List<FailureRecord> recordList;
+    }
+
     /**
-     * All the record list.
+     * Gets the failure records of the current simulation context
+     *
+     * @return the state
      */
-    protected static List<FailureRecord> recordList;
+    private static State state() {
+        return SimulationContext.current().get(STATE);
+    }
     /**
      * Id to a Job.
      */
@@ -55,10 +82,11 @@ public class FailureMonitor {
      * Initialize a FailureMonitor object.
      */
     public static void init() {
-        vm2record = new HashMap<>();
-        type2record = new HashMap<>();
-        jobid2record = new HashMap<>();
-        recordList = new ArrayList<>();
+        State state = state();
+        state.vm2record = new HashMap<>();
+        state.type2record = new HashMap<>();
+        state.jobid2record = new HashMap<>();
+        state.recordList = new ArrayList<>();
     }
 
     /**
@@ -119,6 +147,7 @@ public class FailureMonitor {
      */
     public static void postFailureRecord(FailureRecord record) {
 
+        State state = state();
         if (record.workflowId < 0 || record.jobId < 0 || record.vmId < 0) {
             Log.printLine("Error in receiving failure record");
             return;
@@ -127,25 +156,25 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_VM:
 
-                if (!vm2record.containsKey(record.vmId)) {
-                    vm2record.put(record.vmId, new ArrayList<>());
+                if (!state.vm2record.containsKey(record.vmId)) {
+                    state.vm2record.put(record.vmId, new ArrayList<>());
                 }
-                vm2record.get(record.vmId).add(record);
+                state.vm2record.get(record.vmId).add(record);
 
                 break;
             case MONITOR_JOB:
 
-                if (!type2record.containsKey(record.depth)) {
-                    type2record.put(record.depth, new ArrayList<>());
+                if (!state.type2record.containsKey(record.depth)) {
+                    state.type2record.put(record.depth, new ArrayList<>());
                 }
-                type2record.get(record.depth).add(record);
+                state.type2record.get(record.depth).add(record);
 
                 break;
             case MONITOR_NONE:
                 break;
         }
 
-        recordList.add(record);
+        state.recordList.add(record);
     }
 
     /**
@@ -157,6 +186,7 @@ public class FailureMonitor {
      */
     public static double analyze(int workflowId, int type) {
 
+        State state = state();
         /**
          * workflow level : all jobs together *
          */
@@ -165,7 +195,7 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_ALL:
 
-                for (FailureRecord record : recordList) {
+                for (FailureRecord record : state.recordList) {
                     sumFailures += record.failedTasksNum;
                     sumJobs += record.allTaskNum;
                 }
@@ -174,8 +204,8 @@ public class FailureMonitor {
 
             case MONITOR_JOB:
 
-                if (type2record.containsKey(type)) {
-                    for (FailureRecord record : type2record.get(type)) {
+                if (state.type2record.containsKey(type)) {
+                    for (FailureRecord record : state.type2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -185,8 +215,8 @@ public class FailureMonitor {
                 break;
             case MONITOR_VM:
 
-                if (vm2record.containsKey(type)) {
-                    for (FailureRecord record : vm2record.get(type)) {
+                if (state.vm2record.containsKey(type)) {
+                    for (FailureRecord record : state.vm2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
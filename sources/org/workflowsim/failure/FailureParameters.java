@@ -18,6 +18,7 @@
 package org.workflowsim.failure;
 
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.DistributionGenerator;
 import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
 
@@ -28,14 +29,56 @@ import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
 public class FailureParameters {
 
     /**
-     * Task Failure Rate 
-     * first index is vmId ;second index is task depth
-     * If FAILURE_JOB is specified first index is 0 only
-     * If FAILURE_VM is specified second index is 0 only
+     * The failure parameters of each simulation context
+     */
+    private static final SimulationContext.Key<State> STATE = new SimulationContext.Key<State>() {
+
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
+    /**
+     * The failure parameters of a simulation context
+     */
+    private static class State {
+
+        /**
+         * Task Failure Rate 
+         * first index is vmId ;second index is task depth
+         * If FAILURE_JOB is specified first index is 0 only
+         * If FAILURE_VM is specified second index is 0 only
+         *
+         * @pre 0.0<= value <= 1.0
+         */
+        private DistributionGenerator[][] generators;
+        /**
+         * Fault Tolerant Clustering method
+         */
+        private FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
+        /**
+         * Fault Tolerant Clustering monitor mode
+         */
+        private FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
+        /**
+         * Fault Tolerant Clustering failure generation mode
+         */
+        private FTCFailure failureMode = FTCFailure.FAILURE_NONE;
+        /**
+         * The distribution of the failure 
+         */
+        private DistributionFamily distribution = DistributionFamily.WEIBULL;
+    }
+
+    /**
+     * Gets the failure parameters of the current simulation context
      *
-     * @pre 0.0<= value <= 1.0
+     * @return the state
      */
-    private static DistributionGenerator[][] generators;
+    private static State state() {
+        return SimulationContext.current().get(STATE);
+    }
     /**
      * Fault Tolerant Clustering algorithm
      */
@@ -61,23 +104,7 @@ public class FailureParameters {
         FAILURE_NONE, FAILURE_ALL, FAILURE_VM, FAILURE_JOB, FAILURE_VM_JOB
     }
 
-    /**
-     * Fault Tolerant Clustering method
-     */
-    private static FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
-    /**
-     * Fault Tolerant Clustering monitor mode
-     */
-    private static FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
-    /**
-     * Fault Tolerant Clustering failure generation mode
-     */
-    private static FTCFailure failureMode = FTCFailure.FAILURE_NONE;
     
-    /**
-     * The distribution of the failure 
-     */
-    private static DistributionFamily distribution = DistributionFamily.WEIBULL;
     /**
      * Invalid return value
      */
@@ -94,10 +121,11 @@ public class FailureParameters {
      */
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators) {
-        FTClusteringAlgorithm = fMethod;
-        monitorMode = monitor;
-        failureMode = failure;
-        generators = failureGenerators;
+        State state = state();
+        state.FTClusteringAlgorithm = fMethod;
+        state.monitorMode = monitor;
+        state.failureMode = failure;
+        state.generators = failureGenerators;
     }
 
     /**
@@ -112,7 +140,7 @@ public class FailureParameters {
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators, 
             DistributionFamily dist) {
-        distribution = dist;
+        state().distribution = dist;
         init(fMethod, monitor, failure, failureGenerators);
     }
     /**
@@ -123,10 +151,11 @@ public class FailureParameters {
      * @post $none
      */
     public static DistributionGenerator[][] getFailureGenerators() {
-        if(generators==null){
+        State state = state();
+        if(state.generators==null){
             Log.printLine("ERROR: alpha is not initialized");
         }
-        return generators;
+        return state.generators;
     }
     
     /**
@@ -134,11 +163,12 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxFirstIndex(){
-        if(generators==null || generators.length == 0){
+        State state = state();
+        if(state.generators==null || state.generators.length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators.length;
+        return state.generators.length;
     }
     
     /**
@@ -146,13 +176,14 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxSecondIndex(){
+        State state = state();
         //Test whether it is valid
         getFailureGeneratorsMaxFirstIndex();
-        if(generators[0]==null || generators[0].length == 0){
+        if(state.generators[0]==null || state.generators[0].length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators[0].length;
+        return state.generators[0].length;
     }
     
 
@@ -163,7 +194,7 @@ public class FailureParameters {
      * @return task failure rate
      */
     public static DistributionGenerator getGenerator(int vmIndex, int taskDepth) {
-        return generators[vmIndex][taskDepth];
+        return state().generators[vmIndex][taskDepth];
     }
     
     /**
@@ -174,7 +205,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCFailure getFailureGeneratorMode() {
-        return failureMode;
+        return state().failureMode;
     }
 
     /**
@@ -185,7 +216,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCMonitor getMonitorMode() {
-        return monitorMode;
+        return state().monitorMode;
     }
 
     /**
@@ -196,7 +227,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCluteringAlgorithm getFTCluteringAlgorithm() {
-        return FTClusteringAlgorithm;
+        return state().FTClusteringAlgorithm;
     }
     
     /**
@@ -204,6 +235,6 @@ public class FailureParameters {
      * @return distribution
      */
     public static DistributionFamily getFailureDistribution(){
-        return distribution;
+        return state().distribution;
     }
 }
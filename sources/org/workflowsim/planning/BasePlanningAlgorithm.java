@@ -20,6 +20,7 @@ import java.util.List;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.Task;
+import org.workflowsim.WorkflowGraph;
 
 /**
  * The base planner has implemented the basic features. Every other planning method
@@ -45,6 +46,15 @@ public abstract class BasePlanningAlgorithm implements PlanningAlgorithmInterfac
      * the datacenter list
      */
     private List<? extends Datacenter> datacenterList;
+    /**
+     * the graph of the task list
+     */
+    private WorkflowGraph graph;
+    /**
+     * the number of threads planning the tasks, 1 unless set: the runs of an
+     * experiment already keep the processors busy
+     */
+    private int parallelism = 1;
     /**
      * Initialize a BaseScheduler
      */
@@ -59,6 +69,7 @@ public abstract class BasePlanningAlgorithm implements PlanningAlgorithmInterfac
     @Override
     public void setTaskList(List list) {
         this.tasktList = list;
+        this.graph = null;
     }
 
     /**
@@ -107,6 +118,48 @@ public abstract class BasePlanningAlgorithm implements PlanningAlgorithmInterfac
         this.datacenterList = list;
     }
     
+    /**
+     * Sets the graph of the task list, if it has already been built
+     * @param graph the graph
+     */
+    public void setWorkflowGraph(WorkflowGraph graph){
+        this.graph = graph;
+    }
+    
+    /**
+     * Gets the graph of the task list. It is built at the first call unless
+     * it has been set
+     * @return the graph
+     */
+    public WorkflowGraph getWorkflowGraph(){
+        if (this.graph == null) {
+            this.graph = new WorkflowGraph(getTaskList());
+        }
+        return this.graph;
+    }
+    
+    /**
+     * Sets the number of threads planning the tasks. The planners that
+     * support it search the vms with that many threads; 1, the default,
+     * plans on the calling thread only. The plan is the same whatever the
+     * number.
+     * @param parallelism the number of threads
+     */
+    public void setParallelism(int parallelism){
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Gets the number of threads planning the tasks
+     * @return the number of threads
+     */
+    public int getParallelism(){
+        return this.parallelism;
+    }
+    
     /**
      * The main function
      */
@@ -15,11 +15,12 @@
  */
 package org.workflowsim.planning;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.FileItem;
 import org.workflowsim.Task;
+import org.workflowsim.WorkflowGraph;
 import org.workflowsim.utils.Parameters;
 
 /**
@@ -30,6 +31,11 @@ import org.workflowsim.utils.Parameters;
  * 2. Instead of using the average communication cost in HEFT, we also aim to 
  * optimize the communication cost
  *
+ * The tasks are scheduled level by level. With a parallelism above 1, the
+ * vms are searched in parallel for each task when there are many of them. A task is always given
+ * the first vm of the list among those where it finishes first, so the plan is
+ * the same with any number of threads.
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Nov 10, 2013
@@ -42,8 +48,8 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     @Override
     public void run() {
 
-        List<Vm> vmList = getVmList();
-        double [][] bandwidths = new double[vmList.size()][vmList.size()];
+        final List<Vm> vmList = getVmList();
+        final double [][] bandwidths = new double[vmList.size()][vmList.size()];
         
         for(int i = 0; i < vmList.size(); i++){
             for(int j = i ; j < vmList.size(); j++){
@@ -55,34 +61,80 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
             vm.getBw();
         }
         
+        final WorkflowGraph graph = getWorkflowGraph();
         int vmNum = getVmList().size();
         int taskNum = getTaskList().size();
-        double [] availableTime = new double[vmNum];
+        final double [] availableTime = new double[vmNum];
         //cloudlet id starts from 1
-        double [][] earliestStartTime = new double[taskNum + 1][vmNum];
-        double [][] earliestFinishTime = new double[taskNum + 1][vmNum];
-        int [] allocation = new int[taskNum + 1];
+        final double [][] earliestStartTime = new double[taskNum + 1][vmNum];
+        final double [][] earliestFinishTime = new double[taskNum + 1][vmNum];
+        final int [] allocation = new int[taskNum + 1];
+        
+        /*
+         * A level holds the tasks whose parents are all in the levels above,
+         * in the order of the task list. levels holds the tasks of level l
+         * from offsets[l] to offsets[l + 1].
+         */
+        int [] order = graph.getTopologicalOrder();
+        int [] depths = new int[graph.getTaskNum()];
+        int maxDepth = 0;
+        for(int task : order){
+            for(int edge = graph.getChildEdgeStart(task); edge < graph.getChildEdgeEnd(task); edge++){
+                int child = graph.getEdgeTarget(edge);
+                depths[child] = Math.max(depths[child], depths[task] + 1);
+            }
+            maxDepth = Math.max(maxDepth, depths[task]);
+        }
+        boolean [] sorted = new boolean[graph.getTaskNum()];
+        int [] offsets = new int[maxDepth + 2];
+        for(int task : order){
+            sorted[task] = true;
+            offsets[depths[task] + 1] ++;
+        }
+        for(int depth = 0; depth <= maxDepth; depth++){
+            offsets[depth + 1] += offsets[depth];
+        }
+        int [] levels = new int[order.length];
+        int [] next = offsets.clone();
+        for(int task = 0; task < graph.getTaskNum(); task++){
+            if(sorted[task]){
+                levels[next[depths[task]] ++] = task;
+            }
+        }
         
-        List<Task> taskList = new ArrayList(getTaskList());
-        List<Task> readyList = new ArrayList<>();
-        while(!taskList.isEmpty()){
-            readyList.clear();
-            for(Task task : taskList){
-                boolean ready = true;
+        final long [][] fileSizes = new long[graph.getTaskNum()][];
+        ForkJoinPool pool = null;
+        if(getParallelism() > 1){
+            pool = new ForkJoinPool(getParallelism());
+        }
+        VmSearch search = new VmSearch(pool, vmNum) {
+            @Override
+            protected double getFinishTime(int index, int vmIndex) {
+                Task task = graph.getTask(index);
+                Vm vm = vmList.get(vmIndex);
+                double startTime = availableTime[vm.getId()];
+                int parentIndex = 0;
                 for(Task parent: task.getParentList()){
-                    if(taskList.contains(parent)){
-                        ready = false;
-                        break;
+                    int allocatedVmId = allocation[parent.getCloudletId()];
+                    double actualFinishTime = earliestFinishTime[parent.getCloudletId()][allocatedVmId];
+                    double communicationTime = fileSizes[index][parentIndex] / bandwidths[allocatedVmId][vm.getId()];
+                    
+                    if(actualFinishTime + communicationTime > startTime){
+                        startTime = actualFinishTime + communicationTime;
                     }
+                    parentIndex ++;
                 }
-                if(ready){
-                    readyList.add(task);
-                }
+                earliestStartTime[task.getCloudletId()][vm.getId()] = startTime;
+                double runtime = task.getCloudletLength() / vm.getMips();
+                earliestFinishTime[task.getCloudletId()][vm.getId()] = runtime + startTime;
+                return runtime + startTime;
             }
-            taskList.removeAll(readyList);
-            //schedule readylist
-            for(Task task: readyList){
-                long [] fileSizes = new long[task.getParentList().size()];
+        };
+        try{
+            //schedule the levels
+            for(int index : levels){
+                Task task = graph.getTask(index);
+                fileSizes[index] = new long[task.getParentList().size()];
                 int parentIndex = 0;
                 for(Task parent: task.getParentList()){
                     long fileSize = 0;
@@ -96,41 +148,21 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
                             }
                         }
                     }
-                    fileSizes[parentIndex] = fileSize;
+                    fileSizes[index][parentIndex] = fileSize;
                     parentIndex ++;
                 }     
                 
-                double minTime = Double.MAX_VALUE;
-                int minTimeIndex = 0;
-                
-                for(int vmIndex = 0; vmIndex < getVmList().size(); vmIndex++){
-                    Vm vm = (Vm)getVmList().get(vmIndex);
-                    double startTime = availableTime[vm.getId()];
-                    parentIndex = 0;
-                    for(Task parent: task.getParentList()){
-                        int allocatedVmId = allocation[parent.getCloudletId()];
-                        double actualFinishTime = earliestFinishTime[parent.getCloudletId()][allocatedVmId];
-                        double communicationTime = fileSizes[parentIndex] / bandwidths[allocatedVmId][vm.getId()];
-                        
-                        if(actualFinishTime + communicationTime > startTime){
-                            startTime = actualFinishTime + communicationTime;
-                        }
-                        parentIndex ++;
-                    }
-                    earliestStartTime[task.getCloudletId()][vm.getId()] = startTime;
-                    double runtime = task.getCloudletLength() / vm.getMips();
-                    earliestFinishTime[task.getCloudletId()][vm.getId()] = runtime + startTime;
-                    
-                    if(runtime + startTime < minTime){
-                        minTime = runtime + startTime;
-                        minTimeIndex = vmIndex;
-                    }
-                }
+                int minTimeIndex = search.search(index);
+                double minTime = search.getBestFinishTime();
                 
                 allocation[task.getCloudletId()] = minTimeIndex;//we do not really need it use task.getVmId
                 task.setVmId(minTimeIndex);
                 availableTime[minTimeIndex] = minTime;
             }
+        }finally{
+            if(pool != null){
+                pool.shutdown();
+            }
         }
         
     }
@@ -20,63 +20,68 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
 import org.workflowsim.FileItem;
 import org.workflowsim.Task;
+import org.workflowsim.WorkflowGraph;
 import org.workflowsim.utils.Parameters;
 
 /**
  * The HEFT planning algorithm.
  *
+ * With a parallelism above 1, the computation costs and the ranks are
+ * computed in parallel, level by level from the exits, and the vms are
+ * searched in parallel for each task when there are many of them. The threads only change how fast the plan is
+ * found: the ranks, the order of the tasks and the vm chosen for each of them
+ * are the same with any number of threads, since a task is always given the
+ * first vm of the list among those where it finishes first, and tasks of equal
+ * rank are allocated in topological order.
+ *
  * @author Pedro Paulo Vezzá Campos
  * @date Oct 12, 2013
  */
 public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
-    private Map<Task, Map<CondorVM, Double>> computationCosts;
-    private Map<Task, Map<Task, Double>> transferCosts;
-    private Map<Task, Double> rank;
-    private Map<CondorVM, List<Event>> schedules;
-    private Map<Task, Double> earliestFinishTimes;
+    /**
+     * The time in seconds to compute each task on each vm, indexed by the
+     * tasks of the workflow graph and the position of the vms in the list
+     */
+    private double[][] computationCosts;
+    /**
+     * The transfer cost of each dependency, indexed by the edges of the
+     * workflow graph
+     */
+    private double[] transferCosts;
+    private WorkflowGraph graph;
+    private List<CondorVM> vms;
+    private double[] rank;
+    private VmSchedule[] schedules;
+    private double[] earliestFinishTimes;
     private double averageBandwidth;
-
-    private class Event {
-
-        public double start;
-        public double finish;
-
-        public Event(double start, double finish) {
-            this.start = start;
-            this.finish = finish;
-        }
-    }
+    /**
+     * The pool of the planning threads, null when planning on one thread
+     */
+    private ForkJoinPool pool;
 
     private class TaskRank implements Comparable<TaskRank> {
 
-        public Task task;
-        public Double rank;
+        public int task;
+        public double rank;
 
-        public TaskRank(Task task, Double rank) {
+        public TaskRank(int task, double rank) {
             this.task = task;
             this.rank = rank;
         }
 
         @Override
         public int compareTo(TaskRank o) {
-            return o.rank.compareTo(rank);
+            return Double.compare(o.rank, rank);
         }
     }
 
-    public HEFTPlanningAlgorithm() {
-        computationCosts = new HashMap<>();
-        transferCosts = new HashMap<>();
-        rank = new HashMap<>();
-        earliestFinishTimes = new HashMap<>();
-        schedules = new HashMap<>();
-    }
-
     /**
      * The main function
      */
@@ -86,19 +91,34 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
                 + " tasks.");
 
         averageBandwidth = calculateAverageBandwidth();
+        graph = getWorkflowGraph();
 
+        vms = new ArrayList<>();
         for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            schedules.put(vm, new ArrayList<>());
+            vms.add((CondorVM) vmObject);
+        }
+        schedules = new VmSchedule[vms.size()];
+        for (int vm = 0; vm < schedules.length; vm++) {
+            schedules[vm] = new VmSchedule();
         }
 
-        // Prioritization phase
-        calculateComputationCosts();
-        calculateTransferCosts();
-        calculateRanks();
-
-        // Selection phase
-        allocateTasks();
+        if (getParallelism() > 1) {
+            pool = new ForkJoinPool(getParallelism());
+        }
+        try {
+            // Prioritization phase
+            calculateComputationCosts();
+            calculateTransferCosts();
+            calculateRanks();
+
+            // Selection phase
+            allocateTasks();
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
     }
 
     /**
@@ -117,45 +137,69 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
     /**
      * Populates the computationCosts field with the time in seconds to compute
-     * a task in a vm.
+     * a task in a vm. The tasks are independent, so they are all computed in
+     * parallel.
      */
     private void calculateComputationCosts() {
-        for (Task task : getTaskList()) {
-            Map<CondorVM, Double> costsVm = new HashMap<>();
-            for (Object vmObject : getVmList()) {
-                CondorVM vm = (CondorVM) vmObject;
-                if (vm.getNumberOfPes() < task.getNumberOfPes()) {
-                    costsVm.put(vm, Double.MAX_VALUE);
-                } else {
-                    costsVm.put(vm,
-                            task.getCloudletTotalLength() / vm.getMips());
+        computationCosts = new double[graph.getTaskNum()][];
+        new ParallelLoop() {
+            @Override
+            protected void iterate(int index) {
+                Task task = graph.getTask(index);
+                double[] costs = new double[vms.size()];
+                for (int vm = 0; vm < costs.length; vm++) {
+                    if (vms.get(vm).getNumberOfPes() < task.getNumberOfPes()) {
+                        costs[vm] = Double.MAX_VALUE;
+                    } else {
+                        costs[vm] = task.getCloudletTotalLength() / vms.get(vm).getMips();
+                    }
                 }
+                computationCosts[index] = costs;
             }
-            computationCosts.put(task, costsVm);
-        }
+        }.run(pool, 0, graph.getTaskNum());
     }
 
     /**
-     * Populates the transferCosts map with the time in seconds to transfer all
-     * files from each parent to each child
+     * Populates the transferCosts array with the time in seconds to transfer
+     * all files from each parent to each child. Only the dependencies of the
+     * workflow have a cost, so it takes O(E) memory.
      */
     private void calculateTransferCosts() {
-        // Initializing the matrix
-        for (Task task1 : getTaskList()) {
-            Map<Task, Double> taskTransferCosts = new HashMap<>();
-            for (Task task2 : getTaskList()) {
-                taskTransferCosts.put(task2, 0.0);
+        transferCosts = new double[graph.getEdgeNum()];
+        // The input files of each task by name, built when first needed
+        List<Map<String, FileItem>> inputFiles = new ArrayList<>(graph.getTaskNum());
+        for (int i = 0; i < graph.getTaskNum(); i++) {
+            inputFiles.add(null);
+        }
+
+        for (int edge = 0; edge < graph.getEdgeNum(); edge++) {
+            int child = graph.getEdgeTarget(edge);
+            Map<String, FileItem> childFiles = inputFiles.get(child);
+            if (childFiles == null) {
+                childFiles = getInputFiles(graph.getTask(child));
+                inputFiles.set(child, childFiles);
             }
-            transferCosts.put(task1, taskTransferCosts);
+            transferCosts[edge] = calculateTransferCost(
+                    graph.getTask(graph.getEdgeSource(edge)), childFiles);
         }
+    }
 
-        // Calculating the actual values
-        for (Task parent : getTaskList()) {
-            for (Task child : parent.getChildList()) {
-                transferCosts.get(parent).put(child,
-                        calculateTransferCost(parent, child));
+    /**
+     * Gets the input files of a task by name. If several input files have the
+     * same name, the first one is kept.
+     *
+     * @param task the task
+     * @return the input files by name
+     */
+    private Map<String, FileItem> getInputFiles(Task task) {
+        Map<String, FileItem> files = new HashMap<>();
+        for (FileItem file : task.getFileList()) {
+            if (file.getType() == Parameters.FileType.INPUT
+                    && !files.containsKey(file.getName())) {
+                files.put(file.getName(), file);
             }
         }
+        return files;
     }
 
     /**
@@ -163,26 +207,20 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * between parent and child
      *
      * @param parent
-     * @param child
+     * @param childFiles the input files of the child by name
      * @return Transfer cost in seconds
      */
-    private double calculateTransferCost(Task parent, Task child) {
-        List<FileItem> parentFiles = parent.getFileList();
-        List<FileItem> childFiles = child.getFileList();
-
+    private double calculateTransferCost(Task parent, Map<String, FileItem> childFiles) {
         double acc = 0.0;
 
-        for (FileItem parentFile : parentFiles) {
+        for (FileItem parentFile : parent.getFileList()) {
             if (parentFile.getType() != Parameters.FileType.OUTPUT) {
                 continue;
             }
 
-            for (FileItem childFile : childFiles) {
-                if (childFile.getType() == Parameters.FileType.INPUT
-                        && childFile.getName().equals(parentFile.getName())) {
-                    acc += childFile.getSize();
-                    break;
-                }
+            FileItem childFile = childFiles.get(parentFile.getName());
+            if (childFile != null) {
+                acc += childFile.getSize();
             }
         }
 
@@ -193,59 +231,95 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Invokes calculateRank for each task to be scheduled
+     * Invokes calculateRank for each task to be scheduled. The rank of a task
+     * depends on the ranks of its children, so the tasks are grouped by their
+     * height, the longest path from the task to an exit: the tasks of a height
+     * only need the ranks of the heights below and are ranked in parallel.
      */
     private void calculateRanks() {
-        for (Task task : getTaskList()) {
-            calculateRank(task);
+        rank = new double[graph.getTaskNum()];
+        int[] order = graph.getTopologicalOrder();
+        int[] heights = new int[graph.getTaskNum()];
+        int maxHeight = 0;
+        for (int i = order.length - 1; i >= 0; i--) {
+            int task = order[i];
+            for (int edge = graph.getChildEdgeStart(task); edge < graph.getChildEdgeEnd(task); edge++) {
+                heights[task] = Math.max(heights[task], heights[graph.getEdgeTarget(edge)] + 1);
+            }
+            maxHeight = Math.max(maxHeight, heights[task]);
+        }
+
+        // levels holds the tasks sorted by height, the tasks of height h
+        // from offsets[h] to offsets[h + 1]
+        int[] offsets = new int[maxHeight + 2];
+        for (int task : order) {
+            offsets[heights[task] + 1]++;
+        }
+        for (int height = 0; height <= maxHeight; height++) {
+            offsets[height + 1] += offsets[height];
+        }
+        final int[] levels = new int[order.length];
+        int[] next = offsets.clone();
+        for (int task : order) {
+            levels[next[heights[task]]++] = task;
+        }
+
+        ParallelLoop loop = new ParallelLoop() {
+            @Override
+            protected void iterate(int index) {
+                calculateRank(levels[index]);
+            }
+        };
+        for (int height = 0; height <= maxHeight; height++) {
+            loop.run(pool, offsets[height], offsets[height + 1]);
         }
     }
 
     /**
-     * Populates rank.get(task) with the rank of task as defined in the HEFT
-     * paper.
+     * Populates rank[task] with the rank of task as defined in the HEFT
+     * paper. The ranks of its children must be known.
      *
      * @param task The task have the rank calculates
-     * @return The rank
      */
-    private double calculateRank(Task task) {
-        if (rank.containsKey(task)) {
-            return rank.get(task);
-        }
-
+    private void calculateRank(int task) {
         double averageComputationCost = 0.0;
 
-        for (Double cost : computationCosts.get(task).values()) {
+        for (double cost : computationCosts[task]) {
             averageComputationCost += cost;
         }
 
-        averageComputationCost /= computationCosts.get(task).size();
+        averageComputationCost /= computationCosts[task].length;
 
         double max = 0.0;
-        for (Task child : task.getChildList()) {
-            double childCost = transferCosts.get(task).get(child)
-                    + calculateRank(child);
+        for (int edge = graph.getChildEdgeStart(task); edge < graph.getChildEdgeEnd(task); edge++) {
+            double childCost = transferCosts[edge] + rank[graph.getEdgeTarget(edge)];
             max = Math.max(max, childCost);
         }
 
-        rank.put(task, averageComputationCost + max);
-
-        return rank.get(task);
+        rank[task] = averageComputationCost + max;
     }
 
     /**
      * Allocates all tasks to be scheduled in non-ascending order of schedule.
      */
     private void allocateTasks() {
+        earliestFinishTimes = new double[graph.getTaskNum()];
         List<TaskRank> taskRank = new ArrayList<>();
-        for (Task task : rank.keySet()) {
-            taskRank.add(new TaskRank(task, rank.get(task)));
+        for (int task : graph.getTopologicalOrder()) {
+            taskRank.add(new TaskRank(task, rank[task]));
         }
 
-        // Sorting in non-ascending order of rank
+        // Sorting in non-ascending order of rank, the sort is stable so
+        // tasks of equal rank stay in topological order
         Collections.sort(taskRank);
+        VmSearch search = new VmSearch(pool, vms.size()) {
+            @Override
+            protected double getFinishTime(int task, int vm) {
+                return findFinishTime(task, vm, getReadyTime(task, vm));
+            }
+        };
         for (TaskRank rank : taskRank) {
-            allocateTask(rank.task);
+            allocateTask(rank.task, search);
         }
 
     }
@@ -255,124 +329,56 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * time
      *
      * @param task The task to be scheduled
+     * @param search The search of the vm minimizing the finish time
      * @pre All parent tasks are already scheduled
      */
-    private void allocateTask(Task task) {
-        CondorVM chosenVM = null;
-        double earliestFinishTime = Double.MAX_VALUE;
-        double bestReadyTime = 0.0;
-        double finishTime;
-
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            double minReadyTime = 0.0;
-
-            for (Task parent : task.getParentList()) {
-                double readyTime = earliestFinishTimes.get(parent);
-                if (parent.getVmId() != vm.getId()) {
-                    readyTime += transferCosts.get(parent).get(task);
-                }
-                minReadyTime = Math.max(minReadyTime, readyTime);
-            }
-
-            finishTime = findFinishTime(task, vm, minReadyTime, false);
+    private void allocateTask(int task, VmSearch search) {
+        int chosenVM = search.search(task);
+        double computationCost = computationCosts[task][chosenVM];
+        double start = schedules[chosenVM].findStart(getReadyTime(task, chosenVM), computationCost);
+        schedules[chosenVM].add(start, start + computationCost);
+        earliestFinishTimes[task] = search.getBestFinishTime();
+
+        graph.getTask(task).setVmId(vms.get(chosenVM).getId());
+    }
 
-            if (finishTime < earliestFinishTime) {
-                bestReadyTime = minReadyTime;
-                earliestFinishTime = finishTime;
-                chosenVM = vm;
+    /**
+     * Gets the time all the input files of a task are available on a vm
+     *
+     * @param task The task
+     * @param vm The index of the vm
+     * @return The ready time
+     */
+    private double getReadyTime(int task, int vm) {
+        double minReadyTime = 0.0;
+        int vmId = vms.get(vm).getId();
+
+        for (int k = 0; k < graph.getParentNum(task); k++) {
+            int edge = graph.getParentEdge(task, k);
+            int parent = graph.getEdgeSource(edge);
+            double readyTime = earliestFinishTimes[parent];
+            if (graph.getTask(parent).getVmId() != vmId) {
+                readyTime += transferCosts[edge];
             }
+            minReadyTime = Math.max(minReadyTime, readyTime);
         }
-
-        findFinishTime(task, chosenVM, bestReadyTime, true);
-        earliestFinishTimes.put(task, earliestFinishTime);
-
-        task.setVmId(chosenVM.getId());
+        return minReadyTime;
     }
 
     /**
      * Finds the best time slot available to minimize the finish time of the
      * given task in the vm with the constraint of not scheduling it before
-     * readyTime. If occupySlot is true, reserves the time slot in the schedule.
+     * readyTime. The slot is the earliest gap of the schedule of the vm where
+     * the task fits, or the end of the schedule.
      *
-     * @param task The task to have the time slot reserved
-     * @param vm The vm that will execute the task
+     * @param task The task
+     * @param vm The index of the vm that will execute the task
      * @param readyTime The first moment that the task is available to be
      * scheduled
-     * @param occupySlot If true, reserves the time slot in the schedule.
-     * @return The minimal finish time of the task in the vmn
+     * @return The minimal finish time of the task in the vm
      */
-    private double findFinishTime(Task task, CondorVM vm, double readyTime,
-            boolean occupySlot) {
-        List<Event> sched = schedules.get(vm);
-        double computationCost = computationCosts.get(task).get(vm);
-        double start, finish;
-        int pos;
-
-        if (sched.isEmpty()) {
-            if (occupySlot) {
-                sched.add(new Event(readyTime, readyTime + computationCost));
-            }
-            return readyTime + computationCost;
-        }
-
-        if (sched.size() == 1) {
-            if (readyTime >= sched.get(0).finish) {
-                pos = 1;
-                start = readyTime;
-            } else if (readyTime + computationCost <= sched.get(0).start) {
-                pos = 0;
-                start = readyTime;
-            } else {
-                pos = 1;
-                start = sched.get(0).finish;
-            }
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
-
-        // Trivial case: Start after the latest task scheduled
-        start = Math.max(readyTime, sched.get(sched.size() - 1).finish);
-        finish = start + computationCost;
-        int i = sched.size() - 1;
-        int j = sched.size() - 2;
-        pos = i + 1;
-        while (j >= 0) {
-            Event current = sched.get(i);
-            Event previous = sched.get(j);
-
-            if (readyTime > previous.finish) {
-                if (readyTime + computationCost <= current.start) {
-                    start = readyTime;
-                    finish = readyTime + computationCost;
-                }
-
-                break;
-            }
-            if (previous.finish + computationCost <= current.start) {
-                start = previous.finish;
-                finish = previous.finish + computationCost;
-                pos = i;
-            }
-            i--;
-            j--;
-        }
-
-        if (readyTime + computationCost <= sched.get(0).start) {
-            pos = 0;
-            start = readyTime;
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
-        if (occupySlot) {
-            sched.add(pos, new Event(start, finish));
-        }
-        return finish;
+    private double findFinishTime(int task, int vm, double readyTime) {
+        double computationCost = computationCosts[task][vm];
+        return schedules[vm].findStart(readyTime, computationCost) + computationCost;
     }
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelLoop runs the body of a loop over a range of indexes on a
+ * ForkJoinPool. The range is split in halves until they are small enough to
+ * run on one thread. The iterations must be independent of each other.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+abstract class ParallelLoop {
+
+    /**
+     * The number of iterations run by a thread without splitting them further
+     */
+    static final int GRAIN = 64;
+
+    /**
+     * The body of the loop
+     *
+     * @param index the index of the iteration
+     */
+    protected abstract void iterate(int index);
+
+    /**
+     * Runs the iterations from start to end (excluded) and waits for them
+     *
+     * @param pool the pool, or null to run them on the current thread
+     * @param start the first index
+     * @param end the index after the last one
+     */
+    public void run(ForkJoinPool pool, int start, int end) {
+        if (pool == null || end - start <= GRAIN) {
+            for (int i = start; i < end; i++) {
+                iterate(i);
+            }
+        } else {
+            pool.invoke(new Range(start, end));
+        }
+    }
+
+    private class Range extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int start;
+        private final int end;
+
+        Range(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= GRAIN) {
+                for (int i = start; i < end; i++) {
+                    iterate(i);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new Range(start, middle), new Range(middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+/**
+ * VmSchedule holds the time slots reserved on a vm, in the order of their
+ * start time. The slots are kept in a treap where each slot knows the finish
+ * time of the slot before it, and each subtree the longest gap before one of
+ * its slots, so the earliest gap where a task fits is found in O(log k) for k
+ * slots instead of scanning the whole schedule.
+ *
+ * A schedule may be searched by several threads at once, as long as no slot
+ * is added meanwhile.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+final class VmSchedule {
+
+    private static final class Slot {
+
+        final double start;
+        final double finish;
+        final int priority;
+        /**
+         * The finish time of the slot before, or negative infinity for the
+         * first slot
+         */
+        double previousFinish = Double.NEGATIVE_INFINITY;
+        /**
+         * The longest gap before a slot of this subtree
+         */
+        double maxGap;
+        Slot left;
+        Slot right;
+
+        Slot(double start, double finish, int priority) {
+            this.start = start;
+            this.finish = finish;
+            this.priority = priority;
+        }
+
+        /**
+         * Gets the free time between this slot and the one before. The time
+         * before the first slot is not a gap, since a task can start there as
+         * soon as it is ready.
+         */
+        double getGap() {
+            if (previousFinish == Double.NEGATIVE_INFINITY) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return start - previousFinish;
+        }
+
+        /**
+         * Checks whether this slot comes before another one
+         */
+        boolean precedes(Slot slot) {
+            return start < slot.start || (start == slot.start && finish < slot.finish);
+        }
+    }
+    private Slot root;
+    /**
+     * The finish time of the last slot
+     */
+    private double lastFinish;
+    /**
+     * The state of the xorshift generator giving the priorities of the treap
+     */
+    private int seed = 0x2545f491;
+
+    /**
+     * Finds the earliest time a task can start, no earlier than readyTime and
+     * without overlapping the slots already reserved
+     *
+     * @param readyTime the time the task is ready
+     * @param length the time to run the task
+     * @return the start time
+     */
+    public double findStart(double readyTime, double length) {
+        if (root == null) {
+            return readyTime;
+        }
+        // The gap holding readyTime is before the last slot whose previous
+        // slot finishes no later than readyTime
+        Slot slot = null;
+        for (Slot node = root; node != null;) {
+            if (node.previousFinish <= readyTime) {
+                slot = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        if (slot.start - readyTime >= length) {
+            return readyTime;
+        }
+        // The gaps after it start when their previous slot finishes
+        slot = findGap(root, readyTime, length);
+        if (slot != null) {
+            return slot.previousFinish;
+        }
+        return Math.max(readyTime, lastFinish);
+    }
+
+    /**
+     * Finds the first slot after readyTime with a gap of at least length
+     * before it
+     */
+    private static Slot findGap(Slot node, double readyTime, double length) {
+        if (node == null || node.maxGap < length) {
+            return null;
+        }
+        if (node.previousFinish > readyTime) {
+            Slot slot = findGap(node.left, readyTime, length);
+            if (slot != null) {
+                return slot;
+            }
+            if (node.getGap() >= length) {
+                return node;
+            }
+        }
+        return findGap(node.right, readyTime, length);
+    }
+
+    /**
+     * Reserves a slot. It must not overlap the slots already reserved, which
+     * is the case for a start time given by findStart().
+     *
+     * @param start the start time
+     * @param finish the finish time
+     */
+    public void add(double start, double finish) {
+        Slot slot = new Slot(start, finish, nextPriority());
+        Slot previous = null;
+        Slot next = null;
+        for (Slot node = root; node != null;) {
+            if (slot.precedes(node)) {
+                next = node;
+                node = node.left;
+            } else {
+                previous = node;
+                node = node.right;
+            }
+        }
+        if (previous != null) {
+            slot.previousFinish = previous.finish;
+        }
+        // next is on the path of the insertion, so its subtree is updated there
+        if (next != null) {
+            next.previousFinish = finish;
+        } else {
+            lastFinish = finish;
+        }
+        root = insert(root, slot);
+    }
+
+    private static Slot insert(Slot node, Slot slot) {
+        if (node == null) {
+            update(slot);
+            return slot;
+        }
+        if (slot.precedes(node)) {
+            node.left = insert(node.left, slot);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, slot);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Slot rotateRight(Slot node) {
+        Slot left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        return left;
+    }
+
+    private static Slot rotateLeft(Slot node) {
+        Slot right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        return right;
+    }
+
+    private static void update(Slot node) {
+        double maxGap = node.getGap();
+        if (node.left != null) {
+            maxGap = Math.max(maxGap, node.left.maxGap);
+        }
+        if (node.right != null) {
+            maxGap = Math.max(maxGap, node.right.maxGap);
+        }
+        node.maxGap = maxGap;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
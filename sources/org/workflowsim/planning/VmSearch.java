@@ -0,0 +1,142 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * VmSearch finds the vm where a task finishes first. Large vm lists are split
+ * into ranges searched on a ForkJoinPool. When several vms give the same
+ * finish time, the first one in the list is chosen, whatever the ranges, so
+ * the result is the same as the serial search.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+abstract class VmSearch {
+
+    /**
+     * The number of vms searched by a thread without splitting them further
+     */
+    static final int GRAIN = 32;
+    private final ForkJoinPool pool;
+    private final int vmNum;
+    private double bestFinishTime;
+
+    /**
+     * Creates a search over the vms from 0 to vmNum - 1
+     *
+     * @param pool the pool, or null to search on the current thread
+     * @param vmNum the number of vms
+     */
+    VmSearch(ForkJoinPool pool, int vmNum) {
+        this.pool = pool;
+        this.vmNum = vmNum;
+    }
+
+    /**
+     * Gets the finish time of a task on a vm. It may be called by several
+     * threads at once.
+     *
+     * @param task the task
+     * @param vm the index of the vm
+     * @return the finish time
+     */
+    protected abstract double getFinishTime(int task, int vm);
+
+    /**
+     * Finds the vm where a task finishes first
+     *
+     * @param task the task
+     * @return the index of the vm, or -1 if there is no vm
+     */
+    public int search(int task) {
+        Candidate best;
+        if (pool == null || vmNum <= GRAIN) {
+            best = search(task, 0, vmNum);
+        } else {
+            best = pool.invoke(new Range(task, 0, vmNum));
+        }
+        if (best == null) {
+            bestFinishTime = Double.MAX_VALUE;
+            return -1;
+        }
+        bestFinishTime = best.finishTime;
+        return best.vm;
+    }
+
+    /**
+     * Gets the finish time on the vm found by the last search
+     *
+     * @return the finish time
+     */
+    public double getBestFinishTime() {
+        return bestFinishTime;
+    }
+
+    private Candidate search(int task, int start, int end) {
+        Candidate best = null;
+        for (int vm = start; vm < end; vm++) {
+            double finishTime = getFinishTime(task, vm);
+            if (best == null || finishTime < best.finishTime) {
+                best = new Candidate(vm, finishTime);
+            }
+        }
+        return best;
+    }
+
+    private static class Candidate {
+
+        final int vm;
+        final double finishTime;
+
+        Candidate(int vm, double finishTime) {
+            this.vm = vm;
+            this.finishTime = finishTime;
+        }
+    }
+
+    private class Range extends RecursiveTask<Candidate> {
+
+        private static final long serialVersionUID = 1L;
+        private final int task;
+        private final int start;
+        private final int end;
+
+        Range(int task, int start, int end) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Candidate compute() {
+            if (end - start <= GRAIN) {
+                return search(task, start, end);
+            }
+            int middle = (start + end) >>> 1;
+            Range right = new Range(task, middle, end);
+            right.fork();
+            Candidate first = new Range(task, start, middle).compute();
+            Candidate second = right.join();
+            // the first range wins ties, as in the serial search
+            if (second.finishTime < first.finishTime) {
+                return second;
+            }
+            return first;
+        }
+    }
+}
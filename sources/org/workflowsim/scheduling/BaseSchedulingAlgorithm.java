@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.IdleVmRegistry;
 
 /**
  * The base scheduler has implemented the basic features. Every other scheduling method
@@ -38,6 +39,10 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * the vm list.
      */
     private List<? extends Vm> vmList;
+    /**
+     * the idle vms of the vm list.
+     */
+    private IdleVmRegistry idleVms;
     /**
      * the scheduled job list.
      */
@@ -68,6 +73,31 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
     @Override
     public void setVmList(List list) {
         this.vmList = new ArrayList(list);
+        this.idleVms = null;
+    }
+
+    /**
+     * Sets the registry of the idle vms of the vm list, as kept up to date by
+     * the WorkflowScheduler. It must be set after the vm list.
+     *
+     * @param registry the registry
+     */
+    public void setIdleVms(IdleVmRegistry registry) {
+        this.idleVms = registry;
+    }
+
+    /**
+     * Gets the idle vms of the vm list. If no registry has been set, a polling
+     * one is created from the vm list, so the vms stay registered with the
+     * registry they belong to.
+     *
+     * @return the idle vms
+     */
+    public IdleVmRegistry getIdleVms() {
+        if (this.idleVms == null) {
+            this.idleVms = IdleVmRegistry.polling(this.vmList);
+        }
+        return this.idleVms;
     }
 
     /**
@@ -80,6 +110,15 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
         return this.cloudletList;
     }
 
+    /**
+     * Gets a copy of the job list that can be reordered.
+     *
+     * @return a new list of the jobs
+     */
+    protected List<Cloudlet> copyCloudletList() {
+        return new ArrayList<Cloudlet>(this.cloudletList);
+    }
+
     /**
      * Gets the vm list
      *
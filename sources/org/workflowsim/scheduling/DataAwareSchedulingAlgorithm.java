@@ -19,7 +19,9 @@ import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
 import org.workflowsim.FileItem;
+import org.workflowsim.IdleVmRegistry;
 import org.workflowsim.Job;
+import org.workflowsim.Task;
 import org.workflowsim.WorkflowSimTags;
 import org.workflowsim.utils.ReplicaCatalog;
 
@@ -40,26 +42,25 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     @Override
     public void run() {
 
-        
+        IdleVmRegistry idleVms = getIdleVms();
         int size = getCloudletList().size();
 
         for (int i = 0; i < size; i++) {
+            //no vm available 
+            if (idleVms.isEmpty()) {
+                break;
+            }
 
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
 
-            int vmSize = getVmList().size();
             CondorVM closestVm = null;//(CondorVM)getVmList().get(0);
             double minTime = Double.MAX_VALUE;
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    Job job = (Job)cloudlet;
-                    double time = dataTransferTime(job.getFileList(), cloudlet, vm.getId());
-                    if(time < minTime){
-                        minTime = time;
-                        closestVm = vm;
-                    }
-                    
+            for (CondorVM vm : idleVms.getVms()) {
+                Job job = (Job)cloudlet;
+                double time = dataTransferTime(job.getFileList(), cloudlet, vm.getId());
+                if(time < minTime){
+                    minTime = time;
+                    closestVm = vm;
                 }
             }
 
@@ -80,25 +81,9 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
      */
 
     protected double dataTransferTime(List<FileItem> requiredFiles, Cloudlet cl, int vmId)  {
-        double time = 0.0;
-
-        for (FileItem file : requiredFiles) {
-            //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
-                List<String> siteList = ReplicaCatalog.getStorageList(file.getName());
-
-                boolean hasFile = false;
-                for (String site : siteList) {
-                    if(site.equals(Integer.toString(vmId))){
-                        hasFile = true;
-                        break;
-                    }
-                }
-                if(!hasFile){
-                    time += file.getSize() ;
-                }
-            }
-        }
-        return time;
+        //The input file is not an output File 
+        List<FileItem> inputFiles = cl instanceof Task && requiredFiles == ((Task) cl).getFileList()
+                ? ((Task) cl).getRealInputFileList() : FileItem.getRealInputFiles(requiredFiles);
+        return ReplicaCatalog.getMissingSize(inputFiles, vmId);
     }
 }
@@ -38,22 +38,14 @@ public class FCFSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
         for (Iterator it = getCloudletList().iterator(); it.hasNext();) {
             Cloudlet cloudlet = (Cloudlet) it.next();
-            boolean stillHasVm = false;
-            for (Iterator itc = getVmList().iterator(); itc.hasNext();) {
-
-                CondorVM vm = (CondorVM) itc.next();
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    stillHasVm = true;
-                    vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-                    cloudlet.setVmId(vm.getId());
-                    getScheduledList().add(cloudlet);
-                    break;
-                }
-            }
+            CondorVM vm = getIdleVms().getFirst();
             //no vm available 
-            if (!stillHasVm) {
+            if (vm == null) {
                 break;
             }
+            vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            cloudlet.setVmId(vm.getId());
+            getScheduledList().add(cloudlet);
         }
     }
 }
@@ -46,6 +46,9 @@ public class IWDSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
 	@Override
 	public void run() {
+		if (getIdleVms().isEmpty()) {
+			return;
+		}
 
 		int[] priority = Cloudlet.getArray();
 
@@ -85,26 +88,10 @@ public class IWDSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 			}
 			hasChecked.set(maxIndex, true);
 
-			int vmSize = getVmList().size();
-			CondorVM firstIdleVm = null;// (CondorVM)getVmList().get(0);
-			for (int j = 0; j < vmSize; j++) {
-				CondorVM vm = (CondorVM) getVmList().get(j);
-				if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-					firstIdleVm = vm;
-					break;
-				}
-			}
+			CondorVM firstIdleVm = getIdleVms().getFastest();
 			if (firstIdleVm == null) {
 				break;
 			}
-			for (int j = 0; j < vmSize; j++) {
-				CondorVM vm = (CondorVM) getVmList().get(j);
-				if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-						&& vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-					firstIdleVm = vm;
-
-				}
-			}
 			firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
 			maxCloudlet.setVmId(firstIdleVm.getId());
 			getScheduledList().add(maxCloudlet);
@@ -17,7 +17,9 @@ package org.workflowsim.scheduling;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Log.Level;
 import org.workflowsim.CondorVM;
+import org.workflowsim.IdleVmRegistry;
 import org.workflowsim.WorkflowSimTags;
 
 /**
@@ -33,41 +35,30 @@ public class MCTSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         super();
     }
 
+    /**
+     * Schedules the cloudlets in the order of the list, each to the fastest
+     * idle vm left, taken from the IdleVmRegistry instead of scanning all the
+     * vms for each cloudlet.
+     */
     @Override
     public void run() {
-
-
+        IdleVmRegistry idleVms = getIdleVms();
         int size = getCloudletList().size();
 
         for (int i = 0; i < size; i++) {
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;
-
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+            CondorVM firstIdleVm = idleVms.getFastest();
             if (firstIdleVm == null) {
                 break;
             }
-
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && (vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips())) {
-                    firstIdleVm = vm;
-                }
-            }
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             cloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(cloudlet);
-            Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
-                    + cloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
-                    + " with " + firstIdleVm.getCurrentRequestedTotalMips());
+            if (Log.isEnabled(Level.INFO)) {
+                Log.printConcatLine("Schedules ", cloudlet.getCloudletId(), " with ",
+                        cloudlet.getCloudletLength(), " to VM ", firstIdleVm.getId(), " with ",
+                        firstIdleVm.getCurrentRequestedTotalMips());
+            }
         }
     }
 }
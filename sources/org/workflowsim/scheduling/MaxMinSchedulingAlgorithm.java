@@ -15,11 +15,14 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Log.Level;
 import org.workflowsim.CondorVM;
+import org.workflowsim.IdleVmRegistry;
 import org.workflowsim.WorkflowSimTags;
 
 /**
@@ -37,76 +40,45 @@ public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public MaxMinSchedulingAlgorithm() {
         super();
     }
+
     /**
-     * the check point list.
+     * Orders the cloudlets by decreasing length
      */
-    private final List<Boolean> hasChecked = new ArrayList<>();
+    private static final Comparator<Cloudlet> LONGEST_FIRST = new Comparator<Cloudlet>() {
+        @Override
+        public int compare(Cloudlet c1, Cloudlet c2) {
+            return Long.compare(c2.getCloudletLength(), c1.getCloudletLength());
+        }
+    };
 
+    /**
+     * Schedules the longest cloudlet to the fastest idle vm, then the next
+     * longest to the next fastest, and so on. The cloudlets are sorted once
+     * and the idle vms are taken from the IdleVmRegistry, instead of scanning
+     * all the cloudlets and all the vms for each cloudlet.
+     */
     @Override
     public void run() {
-
-
-        //Log.printLine("Schedulin Cycle");
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
+        IdleVmRegistry idleVms = getIdleVms();
+        if (idleVms.isEmpty()) {
+            return;
         }
-        for (int i = 0; i < size; i++) {
-            int maxIndex = 0;
-            Cloudlet maxCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (!hasChecked.get(j)) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                    break;
-                }
-            }
-            if (maxCloudlet == null) {
-                break;
-            }
-
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length > maxCloudlet.getCloudletLength()) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                }
-            }
-            hasChecked.set(maxIndex, true);
-
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+        List<Cloudlet> cloudlets = copyCloudletList();
+        // the sort is stable, so among equal lengths the first in the list is first
+        Collections.sort(cloudlets, LONGEST_FIRST);
+        for (Cloudlet maxCloudlet : cloudlets) {
+            CondorVM firstIdleVm = idleVms.getFastest();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-
-                }
-            }
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             maxCloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(maxCloudlet);
-            Log.printLine("Schedules " + maxCloudlet.getCloudletId() + " with "
-                    + maxCloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
-                    + " with " + firstIdleVm.getCurrentRequestedTotalMips());
-
+            if (Log.isEnabled(Level.INFO)) {
+                Log.printConcatLine("Schedules ", maxCloudlet.getCloudletId(), " with ",
+                        maxCloudlet.getCloudletLength(), " to VM ", firstIdleVm.getId(), " with ",
+                        firstIdleVm.getCurrentRequestedTotalMips());
+            }
         }
     }
 }
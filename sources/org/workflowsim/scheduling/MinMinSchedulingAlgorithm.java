@@ -15,10 +15,12 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
+import org.workflowsim.IdleVmRegistry;
 import org.workflowsim.WorkflowSimTags;
 
 /**
@@ -33,64 +35,37 @@ public class MinMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public MinMinSchedulingAlgorithm() {
         super();
     }
-    private final List<Boolean> hasChecked = new ArrayList<>();
 
+    /**
+     * Orders the cloudlets by increasing length
+     */
+    private static final Comparator<Cloudlet> SHORTEST_FIRST = new Comparator<Cloudlet>() {
+        @Override
+        public int compare(Cloudlet c1, Cloudlet c2) {
+            return Long.compare(c1.getCloudletLength(), c2.getCloudletLength());
+        }
+    };
+
+    /**
+     * Schedules the shortest cloudlet to the fastest idle vm, then the next
+     * shortest to the next fastest, and so on. The cloudlets are sorted once
+     * and the idle vms are taken from the IdleVmRegistry, instead of scanning
+     * all the cloudlets and all the vms for each cloudlet.
+     */
     @Override
     public void run() {
-
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
+        IdleVmRegistry idleVms = getIdleVms();
+        if (idleVms.isEmpty()) {
+            return;
         }
-        for (int i = 0; i < size; i++) {
-            int minIndex = 0;
-            Cloudlet minCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (!hasChecked.get(j)) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                    break;
-                }
-            }
-            if (minCloudlet == null) {
-                break;
-            }
-
-
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length < minCloudlet.getCloudletLength()) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                }
-            }
-            hasChecked.set(minIndex, true);
-
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+        List<Cloudlet> cloudlets = copyCloudletList();
+        // the sort is stable, so among equal lengths the first in the list is first
+        Collections.sort(cloudlets, SHORTEST_FIRST);
+        for (Cloudlet minCloudlet : cloudlets) {
+            CondorVM firstIdleVm = idleVms.getFastest();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-                }
-            }
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             minCloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(minCloudlet);
@@ -17,9 +17,9 @@ package org.workflowsim.scheduling;
 
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
+import org.workflowsim.IdleVmRegistry;
 import org.workflowsim.WorkflowSimTags;
 
 /**
@@ -36,30 +36,19 @@ public class RoundRobinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
      */
     @Override
     public void run() {
-        int vmIndex = 0;
-        
         int size = getCloudletList().size();
         Collections.sort(getCloudletList(), new CloudletListComparator());
-        List vmList = getVmList();
-        Collections.sort(vmList, new VmListComparator());
+        // the idle vms are kept in the order of their ids
+        IdleVmRegistry idleVms = getIdleVms();
         for (int j = 0; j < size; j++) {
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-            int vmSize = vmList.size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int l = 0; l < vmSize; l++) {
-                CondorVM vm = (CondorVM) vmList.get(l);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+            CondorVM firstIdleVm = idleVms.getFirst();
             if (firstIdleVm == null) {
                 break;
             }
-            ((CondorVM) firstIdleVm).setState(WorkflowSimTags.VM_STATUS_BUSY);
+            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             cloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(cloudlet);
-            vmIndex = (vmIndex + 1) % vmList.size();
         }
     }
     /**
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Log.Level;
 import org.workflowsim.CondorVM;
 import org.workflowsim.WorkflowSimTags;
 
@@ -60,8 +61,8 @@ public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
              * StaticSchedulingAlgorithm itself does not do the mapping.
              */
             if (cloudlet.getVmId() < 0 || !mId2Vm.containsKey(cloudlet.getVmId())) {
-                Log.printLine("Cloudlet " + cloudlet.getCloudletId() + " is not matched."
-                        + "It is possible a stage-in job");
+                Log.printConcatLine("Cloudlet ", cloudlet.getCloudletId(),
+                        " is not matched.It is possible a stage-in job");
                 cloudlet.setVmId(0);
 
             }
@@ -69,8 +70,10 @@ public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
             if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
                 vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
                 getScheduledList().add(cloudlet);
-                Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
-                        + cloudlet.getCloudletLength() + " to VM " + cloudlet.getVmId());
+                if (Log.isEnabled(Level.INFO)) {
+                    Log.printConcatLine("Schedules ", cloudlet.getCloudletId(), " with ",
+                            cloudlet.getCloudletLength(), " to VM ", cloudlet.getVmId());
+                }
             }
         }
     }
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.Task;
+
+/**
+ * DagUtils walks a workflow in topological order instead of following every
+ * path from the roots or the exits, so each task and each dependency is
+ * visited once. The parents and children of the tasks given must be in the
+ * list as well. Tasks on a cycle, and the tasks below them, are left out.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class DagUtils {
+
+    private DagUtils() {
+    }
+
+    /**
+     * Gets the tasks in topological order (Kahn's algorithm). The roots come
+     * first in the order of the list, and a task comes after all its parents.
+     *
+     * @param tasks the tasks
+     * @return the tasks ordered from the roots to the exits
+     */
+    public static <T extends Task> List<T> getTopologicalOrder(List<T> tasks) {
+        Map<Task, Integer> indexes = new HashMap<>(tasks.size() * 2);
+        int[] unvisitedParents = new int[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            T task = tasks.get(i);
+            indexes.put(task, i);
+            unvisitedParents[i] = task.getParentList().size();
+        }
+        List<T> order = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            if (task.getParentList().isEmpty()) {
+                order.add(task);
+            }
+        }
+        // order is also the queue of the tasks whose parents have all been visited
+        for (int head = 0; head < order.size(); head++) {
+            for (Task child : order.get(head).getChildList()) {
+                Integer index = indexes.get(child);
+                if (index != null && --unvisitedParents[index] == 0) {
+                    order.add(tasks.get(index));
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Sets the depth of the tasks: 1 for a root, otherwise one more than the
+     * deepest parent. This is the length of the longest path from a root.
+     *
+     * @param tasks the tasks
+     */
+    public static void setDepths(List<? extends Task> tasks) {
+        for (Task task : tasks) {
+            task.setDepth(0);
+        }
+        for (Task task : getTopologicalOrder(tasks)) {
+            if (task.getParentList().isEmpty()) {
+                task.setDepth(1);
+            }
+            for (Task child : task.getChildList()) {
+                if (task.getDepth() + 1 > child.getDepth()) {
+                    child.setDepth(task.getDepth() + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the impact factor of the tasks. Each exit has an impact of 1 over
+     * the number of exits, and a task passes the impact it receives equally
+     * to its parents. The impact of a task is the sum of what it receives
+     * from its children, computed from the exits up in reverse topological
+     * order.
+     *
+     * @param tasks the tasks
+     */
+    public static void addImpacts(List<? extends Task> tasks) {
+        List<? extends Task> order = getTopologicalOrder(tasks);
+        int exits = 0;
+        for (Task task : tasks) {
+            if (task.getChildList().isEmpty()) {
+                exits++;
+            }
+        }
+        double avg = 1.0 / exits;
+        Map<Task, Double> impacts = new HashMap<>(order.size() * 2);
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Task task = order.get(i);
+            double impact = 0.0;
+            if (task.getChildList().isEmpty()) {
+                impact = avg;
+            }
+            for (Task child : task.getChildList()) {
+                Double childImpact = impacts.get(child);
+                if (childImpact != null) {
+                    impact += childImpact / child.getParentList().size();
+                }
+            }
+            impacts.put(task, impact);
+            task.setImpact(task.getImpact() + impact);
+        }
+    }
+}
@@ -18,14 +18,23 @@
 package org.workflowsim.utils;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.FileItem;
 
 /**
  * ReplicaCatalog stores all the data information and where (site) there are
  *
+ * The names of files and sites are given an int id the first time they are
+ * seen, and the sites of each file are kept in a BitSet of site ids, so
+ * checking whether a file is on a site takes constant time. The file ids are
+ * also where the file names of a workflow are interned, so the files of the
+ * same name share a single string.
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
@@ -39,17 +48,134 @@ public class ReplicaCatalog {
         SHARED, LOCAL
     }
     /**
-     * Map from file name to a file object
+     * The replica catalog of each simulation context
      */
-    private static Map<String, FileItem> fileName2File;
+    private static final SimulationContext.Key<State> STATE = new SimulationContext.Key<State>() {
+
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
     /**
-     * The selection of file.system
+     * The replica catalog of a simulation context
      */
-    private static FileSystem fileSystem;
+    private static class State {
+
+        /**
+         * Map from file name to a file object
+         */
+        private Map<String, FileItem> fileName2File;
+        /**
+         * The selection of file.system
+         */
+        private FileSystem fileSystem;
+        /**
+         * The id of each file in the catalog
+         */
+        private Map<String, Integer> fileIds;
+        /**
+         * The name of each file, by file id
+         */
+        private List<String> fileNames;
+        /**
+         * The id of each site
+         */
+        private Map<String, Integer> siteIds;
+        /**
+         * The name of each site, by site id
+         */
+        private List<String> siteNames;
+        /**
+         * The id of the site of each vm
+         */
+        private Map<Integer, Integer> vmSiteIds;
+        /**
+         * The sites of each file in the order they were added, by file id, or
+         * null if the file is in no site yet
+         */
+        private List<List<String>> storageLists;
+        /**
+         * The sites of each file, by file id, or null if the file is in no
+         * site yet
+         */
+        private List<BitSet> replicas;
+
+        /**
+         * Gets the id of a file, or -1 if the file is not in the catalog
+         */
+        int getFileId(String file) {
+            Integer id = fileIds.get(file);
+            if (id == null) {
+                return -1;
+            }
+            return id;
+        }
+
+        int addFile(String file) {
+            Integer id = fileIds.get(file);
+            if (id == null) {
+                id = fileIds.size();
+                fileIds.put(file, id);
+                fileNames.add(file);
+                storageLists.add(null);
+                replicas.add(null);
+            }
+            return id;
+        }
+
+        int addSite(String site) {
+            Integer id = siteIds.get(site);
+            if (id == null) {
+                id = siteNames.size();
+                siteIds.put(site, id);
+                siteNames.add(site);
+            }
+            return id;
+        }
+
+        int addVmSite(int vmId) {
+            Integer id = vmSiteIds.get(vmId);
+            if (id == null) {
+                id = addSite(Integer.toString(vmId));
+                vmSiteIds.put(vmId, id);
+            }
+            return id;
+        }
+
+        void addReplica(String file, int siteId) {
+            int fileId = addFile(file);
+            BitSet sites = replicas.get(fileId);
+            if (sites == null) {
+                sites = new BitSet();
+                replicas.set(fileId, sites);
+                storageLists.set(fileId, new ArrayList<String>());
+            }
+            if (!sites.get(siteId)) {
+                sites.set(siteId);
+                storageLists.get(fileId).add(siteNames.get(siteId));
+            }
+        }
+
+        boolean hasReplica(String file, int vmId) {
+            int fileId = getFileId(file);
+            if (fileId < 0) {
+                return false;
+            }
+            BitSet sites = replicas.get(fileId);
+            return sites != null && sites.get(addVmSite(vmId));
+        }
+    }
+
     /**
-     * Map from file to a list of data storage
+     * Gets the replica catalog of the current simulation context
+     *
+     * @return the state
      */
-    private static Map<String, List<String>> dataReplicaCatalog;
+    private static State state() {
+        return SimulationContext.current().get(STATE);
+    }
 
     /**
      * Initialize a ReplicaCatalog
@@ -57,9 +183,16 @@ public class ReplicaCatalog {
      * @param fs the type of file system
      */
     public static void init(FileSystem fs) {
-        fileSystem = fs;
-        dataReplicaCatalog = new HashMap<>();
-        fileName2File = new HashMap<>();
+        State state = state();
+        state.fileSystem = fs;
+        state.fileName2File = new HashMap<>();
+        state.fileIds = new HashMap<>();
+        state.fileNames = new ArrayList<>();
+        state.siteIds = new HashMap<>();
+        state.siteNames = new ArrayList<>();
+        state.vmSiteIds = new HashMap<>();
+        state.storageLists = new ArrayList<>();
+        state.replicas = new ArrayList<>();
     }
 
     /**
@@ -68,7 +201,7 @@ public class ReplicaCatalog {
      * @return file system
      */
     public static FileSystem getFileSystem() {
-        return fileSystem;
+        return state().fileSystem;
     }
 
     /**
@@ -78,7 +211,7 @@ public class ReplicaCatalog {
      * @return file object
      */
     public static FileItem getFile(String fileName) {
-        return fileName2File.get(fileName);
+        return state().fileName2File.get(fileName);
     }
 
     /**
@@ -88,7 +221,7 @@ public class ReplicaCatalog {
      * @param file , the file object
      */
     public static void setFile(String fileName, FileItem file) {
-        fileName2File.put(fileName, file);
+        state().fileName2File.put(fileName, file);
     }
 
     /**
@@ -98,17 +231,39 @@ public class ReplicaCatalog {
      * @return boolean, whether the file exist
      */
     public static boolean containsFile(String fileName) {
-        return fileName2File.containsKey(fileName);
+        return state().fileName2File.containsKey(fileName);
+    }
+
+    /**
+     * Gets the single string of a file name, adding the file to the catalog
+     * if it has not been seen yet
+     *
+     * @param fileName the file name
+     * @return the name already in the catalog, or fileName itself
+     */
+    public static String internFileName(String fileName) {
+        State state = state();
+        return state.fileNames.get(state.addFile(fileName));
     }
 
     /**
      * Gets the list of storages a file exists
      *
      * @param file the file object
-     * @return list of storages
+     * @return list of storages in the order they were added, empty if the
+     * file is in no storage yet, or null if the catalog has never seen it
      */
     public static List<String> getStorageList(String file) {
-        return dataReplicaCatalog.get(file);
+        State state = state();
+        int fileId = state.getFileId(file);
+        if (fileId < 0) {
+            return null;
+        }
+        List<String> storageList = state.storageLists.get(fileId);
+        if (storageList == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(storageList);
     }
 
     /**
@@ -118,12 +273,50 @@ public class ReplicaCatalog {
      * @param storage , the storage associated with this file
      */
     public static void addFileToStorage(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList<>());
-        }
-        List<String> list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
+        State state = state();
+        state.addReplica(file, state.addSite(storage));
+    }
+
+    /**
+     * Adds a file to the local storage of a vm, whose site is named after the
+     * vm id
+     *
+     * @param file the file name
+     * @param vmId the vm id
+     */
+    public static void addFileToVm(String file, int vmId) {
+        State state = state();
+        state.addReplica(file, state.addVmSite(vmId));
+    }
+
+    /**
+     * Checks whether a file is in the local storage of a vm
+     *
+     * @param file the file name
+     * @param vmId the vm id
+     * @return whether the vm has a replica of the file
+     */
+    public static boolean containsFileOnVm(String file, int vmId) {
+        return state().hasReplica(file, vmId);
+    }
+
+    /**
+     * Gets the size of the files that are not in the local storage of a vm.
+     * For the real input files of a job, this is the data to transfer if the
+     * job runs there.
+     *
+     * @param files the files
+     * @param vmId the vm id
+     * @return the size of the missing files
+     */
+    public static double getMissingSize(List<FileItem> files, int vmId) {
+        State state = state();
+        double size = 0.0;
+        for (FileItem file : files) {
+            if (!state.hasReplica(file.getName(), vmId)) {
+                size += file.getSize();
+            }
         }
+        return size;
     }
 }